@@ -8,10 +8,12 @@ import dev.twme.ombre.color.ColorDataGenerator;
 import dev.twme.ombre.color.ColorService;
 import dev.twme.ombre.command.CommandHandler;
 import dev.twme.ombre.gui.GUIManager;
+import dev.twme.ombre.http.HttpTransport;
 import dev.twme.ombre.i18n.MessageManager;
 import dev.twme.ombre.i18n.PlayerLocaleListener;
 import dev.twme.ombre.manager.ConfigManager;
 import dev.twme.ombre.palette.BlockFilterManager;
+import dev.twme.ombre.refresh.RefreshScheduler;
 
 public final class Ombre extends JavaPlugin {
     
@@ -24,6 +26,8 @@ public final class Ombre extends JavaPlugin {
     private BlockColorsFeature blockColorsFeature;
     private BlockPalettesFeature blockPalettesFeature;
     private MessageManager messageManager;
+    private RefreshScheduler refreshScheduler;
+    private HttpTransport httpTransport;
 
     @Override
     public void onEnable() {
@@ -83,6 +87,12 @@ public final class Ombre extends JavaPlugin {
         getCommand("ombre").setExecutor(commandHandler);
         getCommand("ombre").setTabCompleter(commandHandler);
         
+        // 初始化外部資料的背景更新排程器（BlockColors 與 BlockPalettes 共用）
+        refreshScheduler = new RefreshScheduler(this);
+        
+        // 初始化外部 API 共用的 HTTP 傳輸層
+        httpTransport = new HttpTransport(this);
+        
         // 初始化 BlockColors 功能
         blockColorsFeature = new BlockColorsFeature(this);
         blockColorsFeature.initialize().thenAccept(success -> {
@@ -126,6 +136,16 @@ public final class Ombre extends JavaPlugin {
             blockPalettesFeature.shutdown();
         }
         
+        // 停止背景更新
+        if (refreshScheduler != null) {
+            refreshScheduler.shutdown();
+        }
+        
+        // 停止 HTTP 請求
+        if (httpTransport != null) {
+            httpTransport.shutdown();
+        }
+        
         // 清理 GUI
         if (guiManager != null) {
             guiManager.cleanup();
@@ -170,4 +190,12 @@ public final class Ombre extends JavaPlugin {
     public MessageManager getMessageManager() {
         return messageManager;
     }
+    
+    public RefreshScheduler getRefreshScheduler() {
+        return refreshScheduler;
+    }
+    
+    public HttpTransport getHttpTransport() {
+        return httpTransport;
+    }
 }
@@ -14,6 +14,7 @@ import org.bukkit.plugin.Plugin;
 
 import dev.twme.ombre.color.BlockColor;
 import dev.twme.ombre.color.ColorService;
+import dev.twme.ombre.color.PackedColor;
 import dev.twme.ombre.data.GradientConfig;
 import dev.twme.ombre.palette.BlockFilterManager;
 
@@ -37,12 +38,14 @@ public class GradientAlgorithm {
         final int row;
         final int col;
         final BlockColor color;
+        final int rgb;
         final String blockDataString;
         
         ColorPoint(int row, int col, BlockColor color, String blockDataString) {
             this.row = row;
             this.col = col;
             this.color = color;
+            this.rgb = color.getRgb();
             this.blockDataString = blockDataString;
         }
         
@@ -103,7 +106,7 @@ public class GradientAlgorithm {
                 }
                 
                 // 計算這個位置的插值顏色
-                BlockColor interpolatedColor = interpolateColor(row, col, colorPoints);
+                int interpolatedColor = interpolateColor(row, col, colorPoints);
                 
                 // 找到最接近這個顏色的方塊
                 String closestBlock = findClosestBlock(interpolatedColor);
@@ -160,10 +163,11 @@ public class GradientAlgorithm {
     
     /**
      * 插值計算顏色（加權平均）
+     * @return 打包的 RGB 值
      */
-    private BlockColor interpolateColor(int row, int col, List<ColorPoint> colorPoints) {
+    private int interpolateColor(int row, int col, List<ColorPoint> colorPoints) {
         if (colorPoints.size() == 1) {
-            return colorPoints.get(0).color;
+            return colorPoints.get(0).rgb;
         }
         
         // 計算到每個顏色點的距離
@@ -181,7 +185,7 @@ public class GradientAlgorithm {
         if (minDistance < 0.01) {
             for (int i = 0; i < colorPoints.size(); i++) {
                 if (distances[i] < 0.01) {
-                    return colorPoints.get(i).color;
+                    return colorPoints.get(i).rgb;
                 }
             }
         }
@@ -204,22 +208,22 @@ public class GradientAlgorithm {
         // 加權平均計算顏色
         double r = 0, g = 0, b = 0;
         for (int i = 0; i < colorPoints.size(); i++) {
-            BlockColor color = colorPoints.get(i).color;
-            r += color.getRed() * weights[i];
-            g += color.getGreen() * weights[i];
-            b += color.getBlue() * weights[i];
+            int rgb = colorPoints.get(i).rgb;
+            r += PackedColor.red(rgb) * weights[i];
+            g += PackedColor.green(rgb) * weights[i];
+            b += PackedColor.blue(rgb) * weights[i];
         }
         
-        return new BlockColor((int) r, (int) g, (int) b);
+        return PackedColor.pack((int) r, (int) g, (int) b);
     }
     
     /**
      * 找到最接近指定顏色的方塊
      * 使用玩家的色表設定來過濾可用方塊
      */
-    private String findClosestBlock(BlockColor targetColor) {
+    private String findClosestBlock(int targetRgb) {
         String closestBlock = null;
-        double minDistance = Double.MAX_VALUE;
+        int minDistance = Integer.MAX_VALUE;
         
         // 獲取玩家可用的方塊集合
         Set<Material> availableBlocks;
@@ -237,7 +241,7 @@ public class GradientAlgorithm {
                 BlockColor color = colorService.getBlockColor(blockData);
                 
                 if (color != null && !color.isTransparent()) {
-                    double distance = targetColor.distanceTo(color);
+                    int distance = PackedColor.distanceSq(targetRgb, color.getRgb());
                     if (distance < minDistance) {
                         minDistance = distance;
                         closestBlock = blockData.getAsString();
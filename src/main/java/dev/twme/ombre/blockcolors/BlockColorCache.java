@@ -2,195 +2,301 @@ package dev.twme.ombre.blockcolors;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.logging.Level;
+import java.util.logging.Logger;
 
 import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
-import com.google.gson.Gson;
-import com.google.gson.JsonObject;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 import dev.twme.ombre.blockcolors.data.BlockCategory;
 import dev.twme.ombre.blockcolors.data.BlockColorData;
 import dev.twme.ombre.blockcolors.util.MaterialMapper;
+import dev.twme.ombre.http.ConditionalFetcher;
+import dev.twme.ombre.http.HttpTransport;
+import dev.twme.ombre.refresh.RefreshScheduler;
 
 /**
  * BlockColor 快取管理系統
  * 負責從 API 下載、快取和管理方塊顏色資料
  */
 public class BlockColorCache {
-    private final JavaPlugin plugin;
+    private final Logger logger;
+    private final File dataFolder;
+    // 設定重新載入後會換成新的物件，每次使用時重新取得
+    private final Supplier<? extends ConfigurationSection> config;
+    private final RefreshScheduler refreshScheduler;
+    private final HttpTransport httpTransport;
+    private final long cacheExpiry;
     private static final String API_URL = "https://blockcolors.app/assets/color_data.json";
-    private static final String CACHE_FILE = "blockcolors_cache.yml";
+    private static final String CACHE_FILE = "blockcolors_cache.bin";
+    private static final String YAML_EXPORT_FILE = "blockcolors_cache.yml";  // 除錯用匯出，舊版的快取格式
     private static final long CACHE_EXPIRY = 7 * 24 * 60 * 60 * 1000; // 7天
 
+    // 下載設定
+    private static final long FETCH_TIMEOUT = 15000;
+    private static final int FETCH_ATTEMPTS = 3;
+    private static final long FETCH_RETRY_DELAY = 2000; // 2 秒，每次重試加倍
+
+    /**
+     * 背景更新排程中的資料集名稱
+     */
+    public static final String REFRESH_DATASET = "blockcolors";
+
     // 快取資料
-    private Map<String, BlockColorData> blockColorMap;  // Key: API ID
-    private Map<Material, BlockColorData> materialToBlockMap;  // Key: Minecraft Material
-    private List<BlockColorData> buildingBlocks;
-    private List<BlockColorData> decorationBlocks;
+    // 所有資料與索引放在同一個不可變快照中，在背景建立完成後以單次 volatile 寫入發布，
+    // 讀取端只會看到完整的舊資料或完整的新資料
+    private volatile DataSnapshot data = DataSnapshot.EMPTY;
+    private static final AtomicInteger SNAPSHOT_VERSIONS = new AtomicInteger();
 
     // 快取元資訊
-    private long lastUpdateTime;
+    private volatile long lastUpdateTime;
     private String cacheVersion = "1.0.0";
-    private int totalBlocks;
+    private volatile int totalBlocks;
     private String apiSourceUrl = API_URL;
 
-    public BlockColorCache(JavaPlugin plugin) {
-        this.plugin = plugin;
-        this.blockColorMap = new HashMap<>();
-        this.materialToBlockMap = new HashMap<>();
-        this.buildingBlocks = new ArrayList<>();
-        this.decorationBlocks = new ArrayList<>();
-        
-        MaterialMapper.setLogger(plugin.getLogger());
+    // 條件式下載，保存上次回應的 ETag / Last-Modified
+    private final ConditionalFetcher fetcher;
+
+    // 進行中的下載
+    private CompletableFuture<FetchResult> inFlightFetch;
+
+    /**
+     * 下載結果
+     */
+    private enum FetchResult {
+        UPDATED,       // 取得並解析了新資料
+        NOT_MODIFIED,  // 伺服器回應 304，現有資料仍是最新
+        FAILED
+    }
+
+    public BlockColorCache(JavaPlugin plugin, RefreshScheduler refreshScheduler, HttpTransport httpTransport) {
+        this(plugin.getLogger(), plugin.getDataFolder(), plugin::getConfig, refreshScheduler, httpTransport);
+    }
+
+    /**
+     * 不依賴插件實例的建構子（測試用）
+     */
+    BlockColorCache(Logger logger, File dataFolder, Supplier<? extends ConfigurationSection> config,
+                    RefreshScheduler refreshScheduler, HttpTransport httpTransport) {
+        this.logger = logger;
+        this.dataFolder = dataFolder;
+        this.config = config;
+        this.refreshScheduler = refreshScheduler;
+        this.httpTransport = httpTransport;
+        this.fetcher = new ConditionalFetcher(httpTransport,
+            config.get().getString("blockcolors.api.url", API_URL),
+            FETCH_TIMEOUT, FETCH_ATTEMPTS, FETCH_RETRY_DELAY);
+        this.cacheExpiry = Math.max(60_000L, config.get().getLong("blockcolors.cache.expiry-time", CACHE_EXPIRY));
+        MaterialMapper.setLogger(logger);
     }
 
     /**
      * 初始化快取
-     * 非同步執行，避免阻塞伺服器啟動
+     * 非同步執行，避免阻塞伺服器啟動。
+     * 有快取檔案時立即使用（即使已過期），過期的資料在背景更新；
+     * 只有完全沒有資料時才會等待下載
      */
     public CompletableFuture<Boolean> initialize() {
         return CompletableFuture.supplyAsync(() -> {
             try {
-                plugin.getLogger().info("Initializing BlockColors cache...");
+                logger.info("Initializing BlockColors cache...");
                 
-                // 檢查是否需要更新
-                if (needsUpdate()) {
-                    plugin.getLogger().info("Cache does not exist or has expired, downloading data from API...");
-                    boolean downloaded = downloadFromAPI();
+                // 先載入快取檔案，取得上次更新時間與驗證資訊
+                boolean loaded = loadCacheFromFile();
+                
+                if (!loaded) {
+                    logger.info("Cache does not exist, downloading data from API...");
+                    FetchResult result = fetchFromAPI().join();
                     
-                    if (downloaded) {
-                        plugin.getLogger().info("API data downloaded successfully");
+                    if (result == FetchResult.UPDATED) {
+                        logger.info("API data downloaded successfully");
                         saveCacheToFile();
                     } else {
-                        plugin.getLogger().warning("API download failed, attempting to load from cache file...");
-                        if (!loadCacheFromFile()) {
-                            plugin.getLogger().severe("Cache loading failed! BlockColors feature may not work properly");
-                            return false;
-                        }
-                    }
-                } else {
-                    plugin.getLogger().info("Loading data from cache file...");
-                    if (!loadCacheFromFile()) {
-                        plugin.getLogger().warning("Cache file loading failed, attempting to download from API...");
-                        if (!downloadFromAPI()) {
-                            plugin.getLogger().severe("Unable to load block color data!");
-                            return false;
-                        }
-                        saveCacheToFile();
+                        logger.severe("Unable to load block color data!");
+                        return false;
                     }
+                } else if (needsUpdate()) {
+                    logger.info("Cache has expired, using cached data and refreshing in the background");
                 }
                 
-                // 建立索引
-                buildIndices();
+                // 到期時在背景重新驗證
+                refreshScheduler.getStats(REFRESH_DATASET).markFresh(lastUpdateTime);
+                long age = System.currentTimeMillis() - lastUpdateTime;
+                refreshScheduler.schedulePeriodic(REFRESH_DATASET, cacheExpiry - age, cacheExpiry, this::refreshInBackground);
                 
-                plugin.getLogger().info("BlockColors cache initialization complete");
-                plugin.getLogger().info(MaterialMapper.getMappingStats(blockColorMap.values()));
+                logger.info("BlockColors cache initialization complete");
+                logger.info(MaterialMapper.getMappingStats(data.blocksById.values()));
                 
                 return true;
             } catch (Exception e) {
-                plugin.getLogger().log(Level.SEVERE, "Error occurred while initializing BlockColors cache", e);
+                logger.log(Level.SEVERE, "Error occurred while initializing BlockColors cache", e);
                 return false;
             }
-        });
+        }, httpTransport.getExecutor());
     }
 
     /**
      * 從 API 下載方塊顏色資料
+     *
+     * @return 是否取得最新資料（包含伺服器回應未修改）
      */
     public boolean downloadFromAPI() {
-        int maxRetries = 3;
-        int retryDelay = 2000; // 2 秒
-        
-        for (int attempt = 1; attempt <= maxRetries; attempt++) {
-            try {
-                plugin.getLogger().info("Attempting to download from API (attempt " + attempt + "/" + maxRetries + ")...");
-                
-                URL url = new URL(API_URL);
-                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
-                connection.setRequestMethod("GET");
-                connection.setConnectTimeout(15000);
-                connection.setReadTimeout(15000);
-                connection.setRequestProperty("User-Agent", "Ombre-Minecraft-Plugin");
-                
-                int responseCode = connection.getResponseCode();
-                if (responseCode == 200) {
-                    // 讀取回應
-                    BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)
-                    );
-                    StringBuilder response = new StringBuilder();
-                    String line;
-                    while ((line = reader.readLine()) != null) {
-                        response.append(line);
-                    }
-                    reader.close();
-                    
-                    // 解析 JSON
-                    parseApiResponse(response.toString());
-                    
-                    lastUpdateTime = System.currentTimeMillis();
-                    totalBlocks = blockColorMap.size();
-                    
-                    return true;
-                } else {
-                    plugin.getLogger().warning("API response code: " + responseCode);
-                }
-                
-            } catch (Exception e) {
-                plugin.getLogger().warning("API download failed (attempt " + attempt + "): " + e.getMessage());
-                
-                if (attempt < maxRetries) {
-                    try {
-                        Thread.sleep(retryDelay);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                    }
+        return fetchFromAPI().join() != FetchResult.FAILED;
+    }
+
+    /**
+     * 背景更新工作（由 {@link RefreshScheduler} 定期呼叫）
+     *
+     * @return 是否取得最新資料
+     */
+    private boolean refreshInBackground() {
+        FetchResult result = fetchFromAPI().join();
+        if (result == FetchResult.UPDATED) {
+            saveCacheToFile();
+            logger.info("BlockColors data refreshed in the background");
+        } else if (result == FetchResult.NOT_MODIFIED) {
+            recordRevalidation();
+        }
+        return result != FetchResult.FAILED;
+    }
+
+    /**
+     * 從 API 下載方塊顏色資料
+     * 已有資料時帶上 ETag / Last-Modified 發出條件式請求，未修改時只延長有效期限。
+     * 同時只會有一個下載進行中，重複呼叫會取得同一個結果
+     */
+    private synchronized CompletableFuture<FetchResult> fetchFromAPI() {
+        if (inFlightFetch != null) {
+            return inFlightFetch;
+        }
+
+        logger.info("Downloading block color data from API...");
+
+        // 只有在手上有資料時才能接受 304
+        boolean conditional = !data.blocksById.isEmpty();
+
+        // 解析在 HTTP 執行緒池上進行，直接讀取回應串流；讀取逾時會中止解析，inFlightFetch 隨之清除
+        CompletableFuture<FetchResult> future = fetcher.fetch(conditional, this::readApiResponse)
+            .thenApply(updated -> {
+                lastUpdateTime = System.currentTimeMillis();
+                return updated ? FetchResult.UPDATED : FetchResult.NOT_MODIFIED;
+            })
+            .exceptionally(e -> {
+                logger.warning("API download failed: " + HttpTransport.unwrap(e));
+                return FetchResult.FAILED;
+            });
+
+        inFlightFetch = future;
+        future.whenComplete((result, error) -> {
+            synchronized (this) {
+                if (inFlightFetch == future) {
+                    inFlightFetch = null;
                 }
             }
+        });
+        return future;
+    }
+
+    /**
+     * 讀取 API 回應
+     * 直接從回應串流解析，不在記憶體中保留整份文件；完整解析成功後才取代現有資料，中途失敗時保留舊資料
+     */
+    private void readApiResponse(InputStream input) throws IOException {
+        Map<String, BlockColorData> parsed;
+        try (JsonReader reader = new JsonReader(new BufferedReader(
+                new InputStreamReader(input, StandardCharsets.UTF_8)))) {
+            parsed = parseApiResponse(reader);
         }
-        
-        return false;
+
+        publish(parsed);
+        apiSourceUrl = fetcher.getUrl();
+        totalBlocks = parsed.size();
     }
 
     /**
-     * 解析 API 回應的 JSON 資料
+     * 以串流方式解析 API 回應的 JSON 資料
+     * 格式為 { "<id>": { "display_name", "hex", "lab": [L, a, b], "texture_name", "is_decoration", "show_3d", ... }, ... }，
+     * 每個方塊讀完後直接建立 {@link BlockColorData}，未知欄位會被略過
+     *
+     * @return API ID -> 方塊資料
      */
-    private void parseApiResponse(String jsonString) {
-        Gson gson = new Gson();
-        JsonObject jsonObject = gson.fromJson(jsonString, JsonObject.class);
-        
-        blockColorMap.clear();
+    private Map<String, BlockColorData> parseApiResponse(JsonReader reader) throws IOException {
+        Map<String, BlockColorData> result = new HashMap<>();
         
-        for (String id : jsonObject.keySet()) {
-            JsonObject blockJson = jsonObject.getAsJsonObject(id);
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String id = reader.nextName();
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                logger.warning("Failed to parse block data (ID: " + id + "): not an object");
+                reader.skipValue();
+                continue;
+            }
+            
+            String displayName = null;
+            String hex = null;
+            String textureName = null;
+            double[] lab = null;
+            boolean isDecoration = false;
+            boolean show3d = false;
+            
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "display_name":
+                        displayName = reader.nextString();
+                        break;
+                    case "hex":
+                        hex = reader.nextString();
+                        break;
+                    case "texture_name":
+                        textureName = reader.nextString();
+                        break;
+                    case "is_decoration":
+                        isDecoration = reader.nextBoolean();
+                        break;
+                    case "show_3d":
+                        show3d = reader.nextBoolean();
+                        break;
+                    case "lab":
+                        lab = readLab(reader);
+                        break;
+                    default:
+                        reader.skipValue();
+                        break;
+                }
+            }
+            reader.endObject();
+            
+            if (displayName == null || hex == null || textureName == null || lab == null) {
+                logger.warning("Failed to parse block data (ID: " + id + "): missing required fields");
+                continue;
+            }
             
             try {
-                String displayName = blockJson.get("display_name").getAsString();
-                String hex = blockJson.get("hex").getAsString();
-                String textureName = blockJson.get("texture_name").getAsString();
-                boolean isDecoration = blockJson.get("is_decoration").getAsBoolean();
-                boolean show3d = blockJson.get("show_3d").getAsBoolean();
-                
-                // 解析 Lab 陣列
-                double[] lab = gson.fromJson(
-                    blockJson.get("lab"), 
-                    new TypeToken<double[]>(){}.getType()
-                );
-                
                 // 建立 BlockColorData
                 BlockColorData data = new BlockColorData(
                     id, displayName, hex, lab, textureName, isDecoration, show3d
@@ -202,47 +308,85 @@ public class BlockColorCache {
                 // 只保留可以作為物品的方塊
                 if (material != null && material.isItem()) {
                     data.setMaterial(material);
-                    blockColorMap.put(id, data);
+                    result.put(id, data);
                 } else if (material != null) {
-                    plugin.getLogger().fine("Skipping non-item block: " + textureName + " (" + material.name() + ")");
+                    logger.fine("Skipping non-item block: " + textureName + " (" + material.name() + ")");
                 }
                 
             } catch (Exception e) {
-                plugin.getLogger().warning("Failed to parse block data (ID: " + id + "): " + e.getMessage());
+                logger.warning("Failed to parse block data (ID: " + id + "): " + e.getMessage());
             }
         }
+        reader.endObject();
+        
+        return result;
     }
 
     /**
-     * 建立索引以加速查詢
+     * 讀取 Lab 陣列，元素不足三個時返回 null
      */
-    private void buildIndices() {
-        materialToBlockMap.clear();
-        buildingBlocks.clear();
-        decorationBlocks.clear();
-        
-        for (BlockColorData data : blockColorMap.values()) {
-            // 只索引成功映射的方塊
-            if (data.getMaterial() != null) {
-                materialToBlockMap.put(data.getMaterial(), data);
-                
-                if (data.getCategory() == BlockCategory.BUILDING) {
-                    buildingBlocks.add(data);
-                } else if (data.getCategory() == BlockCategory.DECORATION) {
-                    decorationBlocks.add(data);
-                }
+    private static double[] readLab(JsonReader reader) throws IOException {
+        double[] lab = new double[3];
+        int count = 0;
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (count < 3) {
+                lab[count++] = reader.nextDouble();
+            } else {
+                reader.skipValue();
             }
         }
+        reader.endArray();
+        return count == 3 ? lab : null;
+    }
+
+    /**
+     * 由方塊資料建立新的快照並發布
+     * 快照在呼叫端的執行緒上完整建立後才取代現有快照，並同時讓 {@link ColorMatcher} 重建索引
+     */
+    private void publish(Map<String, BlockColorData> blocks) {
+        DataSnapshot snapshot = new DataSnapshot(blocks, SNAPSHOT_VERSIONS.incrementAndGet());
+        data = snapshot;
+        logger.info("Index created: " + snapshot.blocksByMaterial.size() + " available blocks");
         
-        plugin.getLogger().info("Index created: " + materialToBlockMap.size() + " available blocks");
+        ColorMatcher.onDataReplaced(this);
     }
 
     /**
      * 將快取儲存到檔案
+     * 寫入二進位快照；啟用 blockcolors.cache.yaml-export 時另外匯出可讀的 YAML 檔案
      */
     public void saveCacheToFile() {
         try {
-            File cacheFile = new File(plugin.getDataFolder(), CACHE_FILE);
+            File cacheFile = new File(dataFolder, CACHE_FILE);
+            
+            BlockColorSnapshot snapshot = new BlockColorSnapshot();
+            snapshot.lastUpdateTime = lastUpdateTime;
+            snapshot.cacheVersion = cacheVersion;
+            snapshot.apiSourceUrl = apiSourceUrl;
+            snapshot.etag = fetcher.getEtag();
+            snapshot.lastModified = fetcher.getLastModified();
+            snapshot.totalBlocks = totalBlocks;
+            snapshot.blocks = data.blocksById;
+            snapshot.write(cacheFile);
+            
+            logger.info("Cache saved to: " + cacheFile.getAbsolutePath());
+            
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Failed to save cache file", e);
+        }
+        
+        if (config.get().getBoolean("blockcolors.cache.yaml-export", false)) {
+            exportYaml();
+        }
+    }
+
+    /**
+     * 將快取匯出為 YAML 檔案（僅供除錯檢視）
+     */
+    public void exportYaml() {
+        try {
+            File exportFile = new File(dataFolder, YAML_EXPORT_FILE);
             YamlConfiguration config = new YamlConfiguration();
             
             // 儲存元資訊
@@ -250,9 +394,12 @@ public class BlockColorCache {
             config.set("last_update", lastUpdateTime);
             config.set("api_source", apiSourceUrl);
             config.set("total_blocks", totalBlocks);
+            config.set("etag", fetcher.getEtag());
+            config.set("last_modified", fetcher.getLastModified());
             
             // 儲存方塊資料
-            for (Map.Entry<String, BlockColorData> entry : blockColorMap.entrySet()) {
+            Map<String, BlockColorData> blocks = data.blocksById;
+            for (Map.Entry<String, BlockColorData> entry : blocks.entrySet()) {
                 String id = entry.getKey();
                 BlockColorData data = entry.getValue();
                 String path = "blocks." + id;
@@ -271,20 +418,69 @@ public class BlockColorCache {
                 config.set(path + ".category", data.getCategory().name());
             }
             
-            config.save(cacheFile);
-            plugin.getLogger().info("Cache saved to: " + cacheFile.getAbsolutePath());
+            config.save(exportFile);
+            logger.info("Cache exported to: " + exportFile.getAbsolutePath());
             
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to save cache file", e);
+            logger.log(Level.SEVERE, "Failed to export cache file", e);
         }
     }
 
     /**
      * 從檔案載入快取
+     * 只有舊版 YAML 快取時會改為讀取它，並轉存為二進位快照
      */
     public boolean loadCacheFromFile() {
+        File cacheFile = new File(dataFolder, CACHE_FILE);
+        if (!cacheFile.exists()) {
+            if (loadLegacyYaml()) {
+                saveCacheToFile();
+                return true;
+            }
+            return false;
+        }
+        
         try {
-            File cacheFile = new File(plugin.getDataFolder(), CACHE_FILE);
+            long start = System.nanoTime();
+            BlockColorSnapshot snapshot = BlockColorSnapshot.read(cacheFile);
+            
+            cacheVersion = snapshot.cacheVersion != null ? snapshot.cacheVersion : "1.0.0";
+            apiSourceUrl = snapshot.apiSourceUrl != null ? snapshot.apiSourceUrl : API_URL;
+            restoreValidators(snapshot.etag, snapshot.lastModified);
+            totalBlocks = snapshot.totalBlocks;
+            publish(snapshot.blocks);
+            
+            lastUpdateTime = snapshot.lastUpdateTime;
+            
+            logger.info("Loaded " + snapshot.blocks.size() + " blocks from cache file in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+            return !snapshot.blocks.isEmpty();
+            
+        } catch (Exception e) {
+            logger.log(Level.SEVERE, "Failed to load cache file", e);
+            return false;
+        }
+    }
+
+    /**
+     * 還原快取檔案中的驗證資訊
+     * 設定的 API 網址與快取資料的來源不同時，驗證資訊不適用，下次下載會取得完整資料
+     */
+    private void restoreValidators(String etag, String lastModified) {
+        if (fetcher.getUrl().equals(apiSourceUrl)) {
+            fetcher.setValidators(etag, lastModified);
+        } else {
+            fetcher.setValidators(null, null);
+        }
+    }
+
+    /**
+     * 從舊版 YAML 快取檔案載入
+     */
+    @SuppressWarnings("unchecked")
+    private boolean loadLegacyYaml() {
+        try {
+            File cacheFile = new File(dataFolder, YAML_EXPORT_FILE);
             if (!cacheFile.exists()) {
                 return false;
             }
@@ -296,9 +492,10 @@ public class BlockColorCache {
             lastUpdateTime = config.getLong("last_update", 0);
             apiSourceUrl = config.getString("api_source", API_URL);
             totalBlocks = config.getInt("total_blocks", 0);
+            restoreValidators(config.getString("etag"), config.getString("last_modified"));
             
             // 載入方塊資料
-            blockColorMap.clear();
+            Map<String, BlockColorData> blocks = new HashMap<>();
             if (config.contains("blocks")) {
                 for (String id : config.getConfigurationSection("blocks").getKeys(false)) {
                     String path = "blocks." + id;
@@ -329,19 +526,20 @@ public class BlockColorCache {
                             }
                         }
                         
-                        blockColorMap.put(id, data);
+                        blocks.put(id, data);
                         
                     } catch (Exception e) {
-                        plugin.getLogger().warning("Failed to load block data (ID: " + id + "): " + e.getMessage());
+                        logger.warning("Failed to load block data (ID: " + id + "): " + e.getMessage());
                     }
                 }
             }
             
-            plugin.getLogger().info("Loaded " + blockColorMap.size() + " blocks from cache file");
-            return !blockColorMap.isEmpty();
+            publish(blocks);
+            logger.info("Loaded " + blocks.size() + " blocks from cache file");
+            return !blocks.isEmpty();
             
         } catch (Exception e) {
-            plugin.getLogger().log(Level.SEVERE, "Failed to load cache file", e);
+            logger.log(Level.SEVERE, "Failed to load cache file", e);
             return false;
         }
     }
@@ -350,31 +548,47 @@ public class BlockColorCache {
      * 檢查是否需要更新快取
      */
     public boolean needsUpdate() {
-        File cacheFile = new File(plugin.getDataFolder(), CACHE_FILE);
+        File cacheFile = new File(dataFolder, CACHE_FILE);
         if (!cacheFile.exists()) {
             return true;
         }
         
         // 檢查是否過期
         long currentTime = System.currentTimeMillis();
-        return (currentTime - lastUpdateTime) > CACHE_EXPIRY;
+        return (currentTime - lastUpdateTime) > cacheExpiry;
+    }
+
+    /**
+     * 伺服器回應未修改時，將重新驗證的時間寫入快取檔案的檔頭，延長有效期限而不重寫整個檔案
+     * 檔頭無法更新時（例如檔案已被刪除）改為完整儲存
+     */
+    private void recordRevalidation() {
+        File cacheFile = new File(dataFolder, CACHE_FILE);
+        try {
+            BlockColorSnapshot.writeLastUpdateTime(cacheFile, lastUpdateTime);
+        } catch (IOException e) {
+            logger.fine("Unable to update cache file header: " + e.getMessage());
+            saveCacheToFile();
+        }
     }
 
     /**
      * 手動重新載入快取
+     * 資料未修改時不會重新解析或重寫快取檔案
      */
     public CompletableFuture<Boolean> reload() {
-        return CompletableFuture.supplyAsync(() -> {
-            plugin.getLogger().info("Reloading BlockColors cache...");
-            boolean success = downloadFromAPI();
-            if (success) {
+        logger.info("Reloading BlockColors cache...");
+        return fetchFromAPI().thenApply(result -> {
+            if (result == FetchResult.UPDATED) {
                 saveCacheToFile();
-                buildIndices();
-                plugin.getLogger().info("Cache reload complete");
+                logger.info("Cache reload complete");
+            } else if (result == FetchResult.NOT_MODIFIED) {
+                recordRevalidation();
+                logger.info("Cache is up to date");
             } else {
-                plugin.getLogger().warning("Cache reload failed");
+                logger.warning("Cache reload failed");
             }
-            return success;
+            return result != FetchResult.FAILED;
         });
     }
 
@@ -382,46 +596,63 @@ public class BlockColorCache {
      * 清除快取
      */
     public void clearCache() {
-        blockColorMap.clear();
-        materialToBlockMap.clear();
-        buildingBlocks.clear();
-        decorationBlocks.clear();
+        publish(new HashMap<>());
+        fetcher.setValidators(null, null);
         
-        File cacheFile = new File(plugin.getDataFolder(), CACHE_FILE);
-        if (cacheFile.exists()) {
-            cacheFile.delete();
+        for (String fileName : new String[]{CACHE_FILE, YAML_EXPORT_FILE}) {
+            File cacheFile = new File(dataFolder, fileName);
+            if (cacheFile.exists()) {
+                cacheFile.delete();
+            }
         }
         
-        plugin.getLogger().info("Cache cleared");
+        logger.info("Cache cleared");
     }
 
     // Getters
+
+    /**
+     * 取得所有方塊
+     * 返回目前資料版本的不可變清單，不會複製；資料更新後舊清單保持不變
+     */
     public List<BlockColorData> getAllBlocks() {
-        return new ArrayList<>(blockColorMap.values());
+        return data.allBlocks;
     }
 
+    /**
+     * 取得指定類別的方塊（不可變清單，不會複製）
+     */
     public List<BlockColorData> getBlocksByCategory(BlockCategory category) {
+        DataSnapshot current = data;
         if (category == BlockCategory.BUILDING) {
-            return new ArrayList<>(buildingBlocks);
+            return current.buildingBlocks;
         } else if (category == BlockCategory.DECORATION) {
-            return new ArrayList<>(decorationBlocks);
+            return current.decorationBlocks;
         } else {
-            return getAllBlocks();
+            return current.allBlocks;
         }
     }
 
     public BlockColorData getBlockByMaterial(Material material) {
-        return materialToBlockMap.get(material);
+        return data.blocksByMaterial.get(material);
     }
 
     public BlockColorData getBlockById(String id) {
-        return blockColorMap.get(id);
+        return data.blocksById.get(id);
     }
 
     public int getTotalBlocks() {
         return totalBlocks;
     }
 
+    /**
+     * 目前資料快照的版本，每次發布新資料時改變
+     * 用於讓由方塊資料衍生的快取（例如調色板的 Lab 值）判斷是否需要重新計算
+     */
+    public int getDataVersion() {
+        return data.version;
+    }
+
     public long getLastUpdateTime() {
         return lastUpdateTime;
     }
@@ -429,4 +660,45 @@ public class BlockColorCache {
     public String getCacheVersion() {
         return cacheVersion;
     }
+
+    /**
+     * 方塊資料與索引的不可變快照
+     */
+    private static final class DataSnapshot {
+        static final DataSnapshot EMPTY = new DataSnapshot(Collections.emptyMap(), 0);
+
+        final int version;
+
+        final Map<String, BlockColorData> blocksById;       // Key: API ID
+        final Map<Material, BlockColorData> blocksByMaterial;  // Key: Minecraft Material
+        final List<BlockColorData> allBlocks;
+        final List<BlockColorData> buildingBlocks;
+        final List<BlockColorData> decorationBlocks;
+
+        DataSnapshot(Map<String, BlockColorData> blocks, int version) {
+            this.version = version;
+            Map<Material, BlockColorData> byMaterial = new EnumMap<>(Material.class);
+            List<BlockColorData> building = new ArrayList<>();
+            List<BlockColorData> decoration = new ArrayList<>();
+
+            for (BlockColorData data : blocks.values()) {
+                // 只索引成功映射的方塊
+                if (data.getMaterial() != null) {
+                    byMaterial.put(data.getMaterial(), data);
+
+                    if (data.getCategory() == BlockCategory.BUILDING) {
+                        building.add(data);
+                    } else if (data.getCategory() == BlockCategory.DECORATION) {
+                        decoration.add(data);
+                    }
+                }
+            }
+
+            this.blocksById = Collections.unmodifiableMap(new HashMap<>(blocks));
+            this.blocksByMaterial = Collections.unmodifiableMap(byMaterial);
+            this.allBlocks = Collections.unmodifiableList(new ArrayList<>(blocks.values()));
+            this.buildingBlocks = Collections.unmodifiableList(building);
+            this.decorationBlocks = Collections.unmodifiableList(decoration);
+        }
+    }
 }
@@ -0,0 +1,241 @@
+package dev.twme.ombre.blockcolors;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bukkit.Material;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+
+/**
+ * 方塊顏色快取的二進位快照
+ *
+ * 格式：magic、版本、上次更新時間、字串表、元資訊（字串表索引）、方塊數，
+ * 接著每個方塊依序為 ID、顯示名稱、材質名稱、Material 名稱的字串表索引（-1 表示無）、
+ * 打包的 RGB、float 的 Lab 與旗標位元（bit 0 裝飾方塊、bit 1 顯示 3D）
+ */
+final class BlockColorSnapshot {
+
+    /**
+     * 檔案格式識別碼與版本
+     */
+    static final int MAGIC = 0x4F4D4243; // "OMBC"
+    static final int FORMAT_VERSION = 1;
+
+    // 上次更新時間在檔案中的位置（magic 與版本之後）
+    private static final long LAST_UPDATE_OFFSET = 8;
+
+    private static final int FLAG_DECORATION = 1;
+    private static final int FLAG_SHOW_3D = 1 << 1;
+
+    // 每個方塊紀錄的位元組數：4 個字串索引、RGB、3 個 float、旗標
+    private static final int RECORD_BYTES = 4 * 4 + 4 + 3 * 4 + 1;
+
+    long lastUpdateTime;
+    String cacheVersion;
+    String apiSourceUrl;
+    String etag;
+    String lastModified;
+    int totalBlocks;
+    Map<String, BlockColorData> blocks;
+
+    /**
+     * 寫入快照
+     * 先寫入暫存檔再取代目標檔案，中途失敗不會留下不完整的檔案
+     */
+    void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        StringTable strings = new StringTable();
+        int versionIndex = strings.indexOf(cacheVersion);
+        int sourceIndex = strings.indexOf(apiSourceUrl);
+        int etagIndex = strings.indexOf(etag);
+        int lastModifiedIndex = strings.indexOf(lastModified);
+
+        int[] records = new int[blocks.size() * 4];
+        int i = 0;
+        for (BlockColorData data : blocks.values()) {
+            records[i++] = strings.indexOf(data.getId());
+            records[i++] = strings.indexOf(data.getDisplayName());
+            records[i++] = strings.indexOf(data.getTextureName());
+            records[i++] = strings.indexOf(data.getMaterial() != null ? data.getMaterial().name() : null);
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(temp), 65536))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(lastUpdateTime);
+
+            out.writeInt(strings.values.size());
+            for (String value : strings.values) {
+                out.writeUTF(value);
+            }
+
+            out.writeInt(versionIndex);
+            out.writeInt(sourceIndex);
+            out.writeInt(etagIndex);
+            out.writeInt(lastModifiedIndex);
+            out.writeInt(totalBlocks);
+
+            out.writeInt(blocks.size());
+            i = 0;
+            for (BlockColorData data : blocks.values()) {
+                for (int field = 0; field < 4; field++) {
+                    out.writeInt(records[i++]);
+                }
+                out.writeInt(data.getRgb());
+                double[] lab = data.getLab();
+                out.writeFloat((float) lab[0]);
+                out.writeFloat((float) lab[1]);
+                out.writeFloat((float) lab[2]);
+                out.writeByte((data.isDecoration() ? FLAG_DECORATION : 0) | (data.isShow3d() ? FLAG_SHOW_3D : 0));
+            }
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 讀取快照：一次讀入整個檔案後在記憶體中解碼
+     *
+     * @throws IOException 檔案損毀、格式或版本不符
+     */
+    static BlockColorSnapshot read(File file) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a block color snapshot: " + file.getName());
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported block color snapshot version: " + version);
+        }
+
+        BlockColorSnapshot snapshot = new BlockColorSnapshot();
+        snapshot.lastUpdateTime = in.readLong();
+
+        // 數量先與剩餘的位元組數比對，損毀的檔案不會配置過大的陣列
+        // （每個字串至少有 2 位元組的長度前綴）
+        int stringCount = in.readInt();
+        if (stringCount < 0 || stringCount > in.available() / 2) {
+            throw new IOException("Invalid string table size: " + stringCount);
+        }
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = in.readUTF();
+        }
+        // Material 依名稱解析，每個名稱只查詢一次
+        Material[] materials = new Material[strings.length];
+        boolean[] resolved = new boolean[strings.length];
+
+        snapshot.cacheVersion = lookup(strings, in.readInt());
+        snapshot.apiSourceUrl = lookup(strings, in.readInt());
+        snapshot.etag = lookup(strings, in.readInt());
+        snapshot.lastModified = lookup(strings, in.readInt());
+        snapshot.totalBlocks = in.readInt();
+
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / RECORD_BYTES) {
+            throw new IOException("Invalid block count: " + count);
+        }
+        Map<String, BlockColorData> blocks = new HashMap<>(count * 4 / 3 + 1);
+        for (int i = 0; i < count; i++) {
+            String id = lookup(strings, in.readInt());
+            String displayName = lookup(strings, in.readInt());
+            String textureName = lookup(strings, in.readInt());
+            int materialIndex = in.readInt();
+            int rgb = in.readInt();
+            double[] lab = {in.readFloat(), in.readFloat(), in.readFloat()};
+            int flags = in.readUnsignedByte();
+
+            String hex = "#" + Integer.toHexString((rgb & 0xFFFFFF) | 0x1000000).substring(1);
+            BlockColorData data = new BlockColorData(id, displayName, hex, lab, textureName,
+                (flags & FLAG_DECORATION) != 0, (flags & FLAG_SHOW_3D) != 0);
+
+            if (materialIndex != -1) {
+                if (materialIndex < 0 || materialIndex >= strings.length) {
+                    throw new IOException("Invalid string table index: " + materialIndex);
+                }
+                if (!resolved[materialIndex]) {
+                    materials[materialIndex] = Material.getMaterial(lookup(strings, materialIndex));
+                    resolved[materialIndex] = true;
+                }
+                // Material 不存在時保持 null
+                data.setMaterial(materials[materialIndex]);
+            }
+            blocks.put(id, data);
+        }
+        snapshot.blocks = blocks;
+        return snapshot;
+    }
+
+    /**
+     * 只改寫檔頭中的上次更新時間，其餘內容保持不變
+     * 用於伺服器回應未修改時延長快取的有效期限
+     *
+     * @throws IOException 檔案不存在、不是快照或版本不符
+     */
+    static void writeLastUpdateTime(File file, long lastUpdateTime) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            if (raf.length() < LAST_UPDATE_OFFSET + 8 || raf.readInt() != MAGIC) {
+                throw new IOException("Not a block color snapshot: " + file.getName());
+            }
+            int version = raf.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported block color snapshot version: " + version);
+            }
+            raf.seek(LAST_UPDATE_OFFSET);
+            raf.writeLong(lastUpdateTime);
+        }
+    }
+
+    private static String lookup(String[] strings, int index) throws IOException {
+        if (index == -1) {
+            return null;
+        }
+        if (index < 0 || index >= strings.length) {
+            throw new IOException("Invalid string table index: " + index);
+        }
+        return strings[index];
+    }
+
+    /**
+     * 寫入時建立的字串表，相同字串只儲存一次
+     */
+    private static final class StringTable {
+        private final Map<String, Integer> indexes = new LinkedHashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int indexOf(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer index = indexes.get(value);
+            if (index == null) {
+                index = values.size();
+                values.add(value);
+                indexes.put(value, index);
+            }
+            return index;
+        }
+    }
+}
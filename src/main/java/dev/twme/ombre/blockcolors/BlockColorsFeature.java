@@ -8,10 +8,15 @@ import java.util.concurrent.CompletableFuture;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import dev.twme.ombre.Ombre;
+import dev.twme.ombre.blockcolors.cache.DirectMappedLabCache;
+import dev.twme.ombre.blockcolors.cache.LabCache;
 import dev.twme.ombre.blockcolors.command.BlockColorsCommand;
 import dev.twme.ombre.blockcolors.gui.BlockColorsGUIListener;
 import dev.twme.ombre.blockcolors.gui.PaletteListener;
 import dev.twme.ombre.blockcolors.gui.TermsAcceptanceListener;
+import dev.twme.ombre.blockcolors.image.ImageArtManager;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.metric.StandardMetric;
 
 /**
  * BlockColors 功能主類別
@@ -23,6 +28,8 @@ public class BlockColorsFeature {
     private TermsTracker termsTracker;
     private BlockColorsCommand commandHandler;
     private dev.twme.ombre.blockcolors.data.PaletteDataManager paletteDataManager;
+    private MatchWorker matchWorker;
+    private ImageArtManager imageArtManager;
     
     // 玩家調色盤管理
     private final Map<UUID, dev.twme.ombre.blockcolors.data.PlayerPalette> playerPalettes;
@@ -48,7 +55,8 @@ public class BlockColorsFeature {
                 plugin.getLogger().info("Initializing BlockColors feature...");
                 
                 // 1. 初始化快取系統
-                cache = new BlockColorCache(plugin);
+                cache = new BlockColorCache(plugin, ((Ombre) plugin).getRefreshScheduler(),
+                    ((Ombre) plugin).getHttpTransport());
                 boolean cacheInitialized = cache.initialize().join();
                 
                 if (!cacheInitialized) {
@@ -57,7 +65,19 @@ public class BlockColorsFeature {
                 }
                 
                 // 2. 初始化顏色匹配器
+                ColorMatcher.setLabCache(LabCache.create(
+                    plugin.getConfig().getString("blockcolors.matching.lab-cache.mode", DirectMappedLabCache.MODE),
+                    plugin.getConfig().getInt("blockcolors.matching.lab-cache.size", 4096)
+                ));
+                ColorMatcher.setResultCacheEnabled(
+                    plugin.getConfig().getBoolean("blockcolors.matching.cache-results", true)
+                );
+                ColorMatcher.setDefaultMetric(loadMetric());
                 ColorMatcher.initialize(cache);
+                matchWorker = new MatchWorker(plugin,
+                    plugin.getConfig().getInt("blockcolors.matching.worker-threads", 2),
+                    plugin.getConfig().getInt("blockcolors.matching.prefetch-per-player", 6));
+                imageArtManager = new ImageArtManager(plugin);
                 
                 // 3. 初始化條款追蹤器
                 termsTracker = new TermsTracker(plugin);
@@ -89,7 +109,24 @@ public class BlockColorsFeature {
                     "Error occurred while initializing BlockColors feature", e);
                 return false;
             }
-        });
+        }, ((Ombre) plugin).getHttpTransport().getExecutor());  // 會等待下載，不佔用公用池
+    }
+
+    /**
+     * 從設定讀取色差度量
+     * 未設定 metric 時沿用 use-delta-e-2000 開關
+     */
+    private ColorMetric loadMetric() {
+        boolean useDeltaE2000 = plugin.getConfig().getBoolean("blockcolors.matching.use-delta-e-2000", true);
+        String fallback = useDeltaE2000 ? StandardMetric.DELTA_E_2000.getId() : StandardMetric.DELTA_E_76.getId();
+        String id = plugin.getConfig().getString("blockcolors.matching.metric", fallback);
+        
+        StandardMetric metric = StandardMetric.fromId(id);
+        if (metric == null) {
+            plugin.getLogger().warning("Unknown color metric '" + id + "', using " + fallback);
+            metric = StandardMetric.fromId(fallback);
+        }
+        return metric;
     }
 
     /**
@@ -108,6 +145,15 @@ public class BlockColorsFeature {
             termsTracker.saveTermsData();
         }
         
+        if (matchWorker != null) {
+            matchWorker.shutdown();
+            matchWorker = null;
+        }
+        if (imageArtManager != null) {
+            imageArtManager.shutdown();
+            imageArtManager = null;
+        }
+        
         // 清除快取
         ColorMatcher.clearCache();
         playerPalettes.clear();
@@ -129,10 +175,7 @@ public class BlockColorsFeature {
                 boolean success = cache.reload().join();
                 
                 if (success) {
-                    // 重新初始化顏色匹配器
-                    ColorMatcher.clearCache();
-                    ColorMatcher.initialize(cache);
-                    
+                    // 新資料發布時 ColorMatcher 已一併重建索引並清除快取
                     plugin.getLogger().info("BlockColors reload complete");
                     return true;
                 } else {
@@ -145,7 +188,7 @@ public class BlockColorsFeature {
                     "Error occurred during reload", e);
                 return false;
             }
-        });
+        }, ((Ombre) plugin).getHttpTransport().getExecutor());
     }
 
     /**
@@ -235,6 +278,14 @@ public class BlockColorsFeature {
         return commandHandler;
     }
 
+    public MatchWorker getMatchWorker() {
+        return matchWorker;
+    }
+
+    public ImageArtManager getImageArtManager() {
+        return imageArtManager;
+    }
+
     public boolean isInitialized() {
         return initialized;
     }
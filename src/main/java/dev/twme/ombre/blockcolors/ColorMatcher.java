@@ -1,51 +1,114 @@
 package dev.twme.ombre.blockcolors;
 
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
-import com.google.common.cache.LoadingCache;
+import dev.twme.ombre.blockcolors.cache.DirectMappedLabCache;
+import dev.twme.ombre.blockcolors.cache.LabCache;
 import dev.twme.ombre.blockcolors.data.BlockCategory;
 import dev.twme.ombre.blockcolors.data.BlockColorData;
 import dev.twme.ombre.blockcolors.data.ColorMatch;
-import dev.twme.ombre.blockcolors.util.ColorConverter;
+import dev.twme.ombre.blockcolors.data.PlayerPalette;
+import dev.twme.ombre.blockcolors.harmony.HarmonyGenerator;
+import dev.twme.ombre.blockcolors.index.BlockSearchIndex;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.metric.StandardMetric;
 import org.bukkit.Material;
 
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutionException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * 顏色匹配演算法
- * 使用 Delta E 2000 (CIE2000) 計算顏色相似度
+ * 預設使用 Delta E 2000 (CIE2000) 計算顏色相似度，也可依功能或查詢選擇其他 {@link ColorMetric}
  */
 public class ColorMatcher {
-    private static BlockColorCache cache;
+    private static volatile BlockColorCache cache;
     
-    // 快取最近計算的顏色匹配結果
-    private static LoadingCache<Integer, List<ColorMatch>> matchCache;
+    // 每次計算並快取的最少結果數
+    private static final int CACHED_RESULTS = 100;
     
-    // 預計算的 Lab 值快取（避免重複轉換）
-    private static final Map<Integer, double[]> labCache = new ConcurrentHashMap<>();
+    private static final BlockSearchIndex EMPTY_INDEX = new BlockSearchIndex(Collections.emptyList());
+    
+    // 各類別的方塊搜尋索引（資料載入後建立，未映射 Material 的方塊不會加入）
+    private static volatile Map<BlockCategory, BlockSearchIndex> indexes = new EnumMap<>(BlockCategory.class);
+    
+    // 未指定度量時使用的色差度量
+    private static volatile ColorMetric defaultMetric = StandardMetric.DELTA_E_2000;
+    
+    // 快取最近計算的顏色匹配結果，以 (顏色, 類別, 度量) 為鍵
+    private static volatile Cache<MatchKey, List<ColorMatch>> matchCache;
+    
+    // 是否快取匹配結果（剪枝搜尋已足夠快，可關閉以節省記憶體）
+    private static volatile boolean resultCacheEnabled = true;
+    
+    // 各玩家調色盤的搜尋索引（弱鍵，調色盤卸載後自動回收）
+    private static final Cache<PlayerPalette, PaletteIndex> paletteIndexes = CacheBuilder.newBuilder()
+        .weakKeys()
+        .build();
+    
+    // 目標顏色的 Lab 值快取（有界，避免重複轉換）
+    private static volatile LabCache labCache = new DirectMappedLabCache(4096);
     
     /**
      * 初始化 ColorMatcher
      */
     public static void initialize(BlockColorCache blockColorCache) {
         cache = blockColorCache;
+        indexes = buildCategoryIndexes(blockColorCache);
         
         // 建立匹配結果快取
         matchCache = CacheBuilder.newBuilder()
-            .maximumSize(500)  // 快取最多 500 種顏色的匹配結果
+            .maximumSize(500)  // 快取最多 500 組查詢的匹配結果
             .expireAfterWrite(10, TimeUnit.MINUTES)  // 10 分鐘後過期
             .recordStats()  // 記錄快取統計
-            .build(new CacheLoader<Integer, List<ColorMatch>>() {
-                @Override
-                public List<ColorMatch> load(Integer targetColor) {
-                    return calculateMatchesInternal(targetColor);
-                }
-            });
+            .build();
+    }
+    
+    /**
+     * 設定是否快取匹配結果
+     */
+    public static void setResultCacheEnabled(boolean enabled) {
+        resultCacheEnabled = enabled;
+        if (!enabled && matchCache != null) {
+            matchCache.invalidateAll();
+        }
+    }
+    
+    public static boolean isResultCacheEnabled() {
+        return resultCacheEnabled;
+    }
+    
+    /**
+     * 設定預設的色差度量
+     */
+    public static void setDefaultMetric(ColorMetric metric) {
+        defaultMetric = metric;
+    }
+    
+    public static ColorMetric getDefaultMetric() {
+        return defaultMetric;
+    }
+    
+    /**
+     * 設定目標顏色的 Lab 快取實作
+     */
+    public static void setLabCache(LabCache newLabCache) {
+        labCache = newLabCache;
+    }
+    
+    /**
+     * 取得目前使用的 Lab 快取
+     */
+    public static LabCache getLabCache() {
+        return labCache;
     }
     
     /**
@@ -58,7 +121,7 @@ public class ColorMatcher {
      */
     public static double calculateDeltaE(int targetRgb, BlockColorData blockData) {
         // 1. 將目標顏色轉換到 Lab 空間
-        double[] targetLab = labCache.computeIfAbsent(targetRgb, ColorConverter::rgbToLab);
+        double[] targetLab = labCache.getLab(targetRgb);
         
         // 2. 使用 API 提供的 Lab 值（無需轉換，更精確）
         double[] blockLab = blockData.getLab();
@@ -224,64 +287,281 @@ public class ColorMatcher {
         BlockCategory category,
         int maxResults
     ) {
-        try {
-            // 從快取取得或計算匹配結果
-            List<ColorMatch> allMatches = matchCache.get(targetColor);
-            
-            // 根據類別篩選並限制結果數量
-            return allMatches.stream()
-                .filter(match -> {
-                    // 過濾掉沒有成功映射 Material 的方塊
-                    if (match.getBlock().getMaterial() == null) {
-                        return false;
-                    }
-                    // 類別篩選
-                    return category == BlockCategory.ALL || match.getBlock().getCategory() == category;
-                })
-                .limit(maxResults)
-                .collect(Collectors.toList());
-                
-        } catch (ExecutionException e) {
-            // 快取載入失敗，直接計算
-            return calculateMatchesInternal(targetColor, category, maxResults);
+        return findMatchingBlocks(targetColor, category, maxResults, defaultMetric);
+    }
+    
+    /**
+     * 使用指定的色差度量匹配最相似的方塊（使用快取優化）
+     * 
+     * @param targetColor 目標顏色
+     * @param category 方塊類別篩選
+     * @param maxResults 最大結果數
+     * @param metric 色差度量
+     * @return 排序後的匹配方塊清單
+     */
+    public static List<ColorMatch> findMatchingBlocks(
+        int targetColor,
+        BlockCategory category,
+        int maxResults,
+        ColorMetric metric
+    ) {
+        BlockSearchIndex index = getIndex(category);
+        return findCached(new MatchKey(targetColor & 0xFFFFFF, category, metric, index),
+            index, targetColor, maxResults, metric);
+    }
+    
+    /**
+     * 只在玩家調色盤內的方塊中匹配（使用快取優化）
+     * 調色盤的索引只在其內容變更後重建，匹配結果依調色盤版本快取
+     * 
+     * @param targetColor 目標顏色
+     * @param palette 玩家調色盤
+     * @param maxResults 最大結果數
+     * @param metric 色差度量
+     * @return 排序後的匹配方塊清單
+     */
+    public static List<ColorMatch> findMatchingBlocks(
+        int targetColor,
+        PlayerPalette palette,
+        int maxResults,
+        ColorMetric metric
+    ) {
+        PaletteIndex paletteIndex = getPaletteIndex(palette);
+        return findCached(new MatchKey(targetColor & 0xFFFFFF, BlockCategory.ALL, metric, paletteIndex),
+            paletteIndex.index, targetColor, maxResults, metric);
+    }
+    
+    /**
+     * 只在指定的方塊集合中匹配（不使用快取）
+     * 每次呼叫都會建立該集合的索引，適合一次性或經常變動的集合
+     * 
+     * @param targetColor 目標顏色
+     * @param materials 方塊集合（沒有顏色資料的方塊會被略過）
+     * @param maxResults 最大結果數
+     * @param metric 色差度量
+     * @return 排序後的匹配方塊清單
+     */
+    public static List<ColorMatch> findMatchingBlocks(
+        int targetColor,
+        Collection<Material> materials,
+        int maxResults,
+        ColorMetric metric
+    ) {
+        return buildIndex(materials).findTopK(targetColor, labCache.getLab(targetColor), maxResults, metric);
+    }
+    
+    /**
+     * 匹配多個目標顏色（不使用結果快取）
+     * 依序對每個目標在同一個類別索引上各做一次查詢，各目標的剪枝互相獨立；
+     * 目標的 Lab 值由呼叫者提供，可直接使用超出 sRGB 色域的 Lab 目標（例如色相旋轉後的顏色）
+     * 
+     * @param targetColors 目標 RGB 值（供 OKLab 等非 Lab 空間的度量使用）
+     * @param targetLabs 目標 Lab 值，與 targetColors 一一對應
+     * @param category 方塊類別篩選
+     * @param maxResults 每個目標的最大結果數
+     * @param metric 色差度量
+     * @return 每個目標各自的匹配結果
+     */
+    public static List<List<ColorMatch>> findMatchingBlocks(
+        int[] targetColors,
+        double[][] targetLabs,
+        BlockCategory category,
+        int maxResults,
+        ColorMetric metric
+    ) {
+        if (targetColors.length != targetLabs.length) {
+            throw new IllegalArgumentException("Expected " + targetColors.length + " Lab targets, got " + targetLabs.length);
         }
+        
+        BlockSearchIndex index = getIndex(category);
+        List<List<ColorMatch>> results = new ArrayList<>(targetColors.length);
+        for (int i = 0; i < targetColors.length; i++) {
+            results.add(index.findTopK(targetColors[i], targetLabs[i], maxResults, metric));
+        }
+        return results;
     }
     
     /**
-     * 內部計算方法（不使用快取）
+     * 找出最相似的單一方塊（不使用結果快取）
+     * 供大量、顏色分散的查詢使用（例如圖片轉換），避免擠掉 GUI 的快取結果
+     * 
+     * @param targetColor 目標顏色
+     * @param category 方塊類別篩選
+     * @param metric 色差度量
+     * @return 最相似的方塊，沒有可用方塊時返回 null
+     */
+    public static BlockColorData findBestMatch(int targetColor, BlockCategory category, ColorMetric metric) {
+        List<ColorMatch> matches = getIndex(category).findTopK(targetColor, labCache.getLab(targetColor), 1, metric);
+        return matches.isEmpty() ? null : matches.get(0).getBlock();
+    }
+    
+    /**
+     * 從結果快取取得匹配，未命中時以指定索引計算並寫入快取
+     * 快取的結果由所有查詢共用，以不可變清單存放，返回的清單與子清單都不可修改
      */
-    private static List<ColorMatch> calculateMatchesInternal(int targetColor) {
-        List<BlockColorData> allBlocks = cache.getAllBlocks();
+    private static List<ColorMatch> findCached(
+        MatchKey key,
+        BlockSearchIndex index,
+        int targetColor,
+        int maxResults,
+        ColorMetric metric
+    ) {
+        Cache<MatchKey, List<ColorMatch>> currentCache = matchCache;
+        if (!resultCacheEnabled || currentCache == null) {
+            return index.findTopK(targetColor, labCache.getLab(targetColor), maxResults, metric);
+        }
         
-        // 取得或計算目標顏色的 Lab 值
-        double[] targetLab = labCache.computeIfAbsent(targetColor, ColorConverter::rgbToLab);
+        // 每個鍵只快取一份結果，至少保留 CACHED_RESULTS 筆供不同數量的查詢共用
+        List<ColorMatch> matches = currentCache.getIfPresent(key);
+        if (matches == null || (matches.size() < maxResults && matches.size() < index.size())) {
+            matches = Collections.unmodifiableList(
+                index.findTopK(targetColor, labCache.getLab(targetColor), Math.max(maxResults, CACHED_RESULTS), metric));
+            currentCache.put(key, matches);
+        }
         
-        // 並行計算所有方塊的相似度（提升效能）
-        return allBlocks.parallelStream()
-            .filter(block -> block.getMaterial() != null)  // 只處理成功映射的方塊
-            .map(block -> {
-                double deltaE = calculateDeltaE2000(targetLab, block.getLab());
-                double similarity = Math.max(0, 100 - deltaE);
-                return new ColorMatch(block, similarity, deltaE);
-            })
-            .sorted(Comparator.comparingDouble(ColorMatch::getSimilarity).reversed())
-            .collect(Collectors.toList());
+        return matches.size() > maxResults ? matches.subList(0, maxResults) : matches;
     }
     
     /**
-     * 內部計算方法（帶類別和數量限制）
+     * 取得已快取的匹配結果（不會觸發計算）
+     * 
+     * @return 已快取的結果（不可修改），若尚未計算或結果數不足則返回 null
      */
-    private static List<ColorMatch> calculateMatchesInternal(
+    public static List<ColorMatch> getCachedMatches(
         int targetColor,
         BlockCategory category,
-        int maxResults
+        int maxResults,
+        ColorMetric metric
     ) {
-        List<ColorMatch> allMatches = calculateMatchesInternal(targetColor);
+        Cache<MatchKey, List<ColorMatch>> currentCache = matchCache;
+        if (!resultCacheEnabled || currentCache == null) {
+            return null;
+        }
         
-        return allMatches.stream()
-            .filter(match -> category == BlockCategory.ALL || match.getBlock().getCategory() == category)
-            .limit(maxResults)
-            .collect(Collectors.toList());
+        BlockSearchIndex index = getIndex(category);
+        List<ColorMatch> matches = currentCache.getIfPresent(new MatchKey(targetColor & 0xFFFFFF, category, metric, index));
+        if (matches == null || (matches.size() < maxResults && matches.size() < index.size())) {
+            return null;
+        }
+        return matches.size() > maxResults ? matches.subList(0, maxResults) : matches;
+    }
+    
+    /**
+     * 方塊資料被取代後重建索引並清除快取（由 {@link BlockColorCache} 在發布新快照時呼叫）
+     * 結果快取以搜尋的索引為範圍，即使舊索引上的計算在清除之後才寫入，也不會被新的查詢命中
+     */
+    static void onDataReplaced(BlockColorCache source) {
+        if (cache != source) {
+            return;
+        }
+        indexes = buildCategoryIndexes(source);
+        clearCache();
+    }
+    
+    /**
+     * 為每個類別建立獨立索引，類別篩選的查詢只會接觸該類別的方塊
+     */
+    private static Map<BlockCategory, BlockSearchIndex> buildCategoryIndexes(BlockColorCache source) {
+        Map<BlockCategory, BlockSearchIndex> newIndexes = new EnumMap<>(BlockCategory.class);
+        for (BlockCategory category : BlockCategory.values()) {
+            newIndexes.put(category, new BlockSearchIndex(source.getBlocksByCategory(category)));
+        }
+        return newIndexes;
+    }
+    
+    /**
+     * 取得指定類別的搜尋索引
+     */
+    private static BlockSearchIndex getIndex(BlockCategory category) {
+        BlockSearchIndex index = indexes.get(category);
+        return index != null ? index : EMPTY_INDEX;
+    }
+    
+    /**
+     * 取得調色盤的搜尋索引，調色盤內容或方塊資料變更後才重建
+     */
+    private static PaletteIndex getPaletteIndex(PlayerPalette palette) {
+        PaletteIndex current = paletteIndexes.getIfPresent(palette);
+        Map<BlockCategory, BlockSearchIndex> source = indexes;
+        if (current != null && current.version == palette.getVersion() && current.source == source) {
+            return current;
+        }
+        
+        PaletteIndex rebuilt = new PaletteIndex(palette.getVersion(), source, buildIndex(palette.getBlocks()));
+        paletteIndexes.put(palette, rebuilt);
+        return rebuilt;
+    }
+    
+    /**
+     * 為指定的方塊集合建立搜尋索引
+     */
+    private static BlockSearchIndex buildIndex(Collection<Material> materials) {
+        BlockColorCache currentCache = cache;
+        if (currentCache == null || materials.isEmpty()) {
+            return EMPTY_INDEX;
+        }
+        
+        Set<BlockColorData> blocks = new LinkedHashSet<>();
+        for (Material material : materials) {
+            BlockColorData data = currentCache.getBlockByMaterial(material);
+            if (data != null) {
+                blocks.add(data);
+            }
+        }
+        return new BlockSearchIndex(blocks);
+    }
+    
+    /**
+     * 調色盤索引及其建立時的版本
+     * 同時作為結果快取鍵的範圍，版本變更後舊結果不會再被命中
+     */
+    private static final class PaletteIndex {
+        final int version;
+        final Map<BlockCategory, BlockSearchIndex> source;
+        final BlockSearchIndex index;
+        
+        PaletteIndex(int version, Map<BlockCategory, BlockSearchIndex> source, BlockSearchIndex index) {
+            this.version = version;
+            this.source = source;
+            this.index = index;
+        }
+    }
+    
+    /**
+     * 匹配結果快取的鍵值
+     * scope 為搜尋所用的索引（類別索引或調色盤索引，以物件身分比較），索引重建後舊結果不會再被命中
+     */
+    private static final class MatchKey {
+        private final int color;
+        private final BlockCategory category;
+        private final ColorMetric metric;
+        private final Object scope;
+        
+        MatchKey(int color, BlockCategory category, ColorMetric metric, Object scope) {
+            this.color = color;
+            this.category = category;
+            this.metric = metric;
+            this.scope = scope;
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof MatchKey)) return false;
+            
+            MatchKey that = (MatchKey) obj;
+            return color == that.color && category == that.category && metric.equals(that.metric)
+                && scope == that.scope;
+        }
+        
+        @Override
+        public int hashCode() {
+            int result = color;
+            result = 31 * result + category.hashCode();
+            result = 31 * result + metric.hashCode();
+            result = 31 * result + System.identityHashCode(scope);
+            return result;
+        }
     }
     
     /**
@@ -291,7 +571,11 @@ public class ColorMatcher {
         if (matchCache != null) {
             matchCache.invalidateAll();
         }
+        paletteIndexes.invalidateAll();
         labCache.clear();
+        
+        // 配色結果建立在匹配結果之上，一併清除
+        HarmonyGenerator.clearCache();
     }
     
     /**
@@ -0,0 +1,278 @@
+package dev.twme.ombre.blockcolors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+import dev.twme.ombre.blockcolors.data.BlockCategory;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+
+/**
+ * 顏色匹配工作執行緒池
+ * 在背景執行緒計算匹配結果，並以每位玩家的世代編號確保只有最新一次請求的結果會被套用；
+ * 另以低優先權的單一執行緒預先計算玩家接下來可能查詢的顏色，將結果放入 {@link ColorMatcher} 的快取
+ */
+public class MatchWorker {
+    private final JavaPlugin plugin;
+    private final ExecutorService executor;
+    private final ThreadPoolExecutor prefetchExecutor;
+
+    // 每位玩家排隊中的預先計算數上限（0 表示停用）
+    private final int prefetchLimit;
+
+    // 每位玩家最新請求的世代編號
+    private final Map<UUID, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // 每位玩家最新一輪預先計算的世代編號，以及排隊中尚未開始的預先計算（由清單本身同步）
+    private final Map<UUID, AtomicLong> prefetchGenerations = new ConcurrentHashMap<>();
+    private final Map<UUID, List<Runnable>> queuedPrefetches = new ConcurrentHashMap<>();
+
+    public MatchWorker(JavaPlugin plugin, int threads, int prefetchLimit) {
+        this.plugin = plugin;
+        this.prefetchLimit = Math.max(0, prefetchLimit);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads),
+            new WorkerThreadFactory("Ombre-ColorMatcher-", Thread.NORM_PRIORITY));
+        this.prefetchExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(),
+            new WorkerThreadFactory("Ombre-ColorPrefetch-", Thread.MIN_PRIORITY));
+    }
+
+    /**
+     * 提交匹配請求
+     * 同一玩家的較早請求會被視為過時：尚未開始的直接略過，已完成的結果不會套用
+     *
+     * @param playerId 玩家 UUID
+     * @param rgb 目標顏色
+     * @param category 方塊類別
+     * @param maxResults 最大結果數
+     * @param metric 色差度量
+     * @param callback 在主執行緒上接收結果
+     * @return 此請求的世代編號
+     */
+    public long submit(UUID playerId, int rgb, BlockCategory category, int maxResults,
+                       ColorMetric metric, Consumer<List<ColorMatch>> callback) {
+        return submit(playerId, () -> ColorMatcher.findMatchingBlocks(rgb, category, maxResults, metric), callback);
+    }
+
+    /**
+     * 提交任意計算請求，與 {@link #submit(UUID, int, BlockCategory, int, ColorMetric, Consumer)}
+     * 共用同一玩家的世代編號，較新的請求會使較早的請求過時
+     *
+     * @param playerId 玩家 UUID
+     * @param task 在背景執行緒上執行的計算
+     * @param callback 在主執行緒上接收結果
+     * @return 此請求的世代編號
+     */
+    public <T> long submit(UUID playerId, Supplier<T> task, Consumer<T> callback) {
+        final long generation = generation(playerId).incrementAndGet();
+
+        executor.execute(() -> {
+            // 連續點擊時，排隊中的舊請求不必計算
+            if (!isLatest(playerId, generation)) {
+                return;
+            }
+
+            T result;
+            try {
+                result = task.get();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Error occurred while matching colors", e);
+                return;
+            }
+
+            if (!isLatest(playerId, generation) || !plugin.isEnabled()) {
+                return;
+            }
+            plugin.getServer().getScheduler().runTask(plugin, () -> {
+                if (isLatest(playerId, generation)) {
+                    callback.accept(result);
+                }
+            });
+        });
+        return generation;
+    }
+
+    /**
+     * 預先計算玩家接下來可能查詢的顏色
+     * 新一輪會取代同一玩家尚未執行的上一輪：上一輪排隊中的工作立即從佇列移除並釋放名額，
+     * 因此快速連續點擊時保留的是最新一輪。已在快取中的顏色會被略過，
+     * 每位玩家排隊中的數量不超過設定的上限
+     *
+     * @param playerId 玩家 UUID
+     * @param colors 候選顏色，依可能性由高到低排列
+     * @param category 方塊類別
+     * @param maxResults 最大結果數
+     * @param metric 色差度量
+     * @return 此輪預先計算的世代編號（-1 表示未啟用）
+     */
+    public long prefetch(UUID playerId, int[] colors, BlockCategory category, int maxResults, ColorMetric metric) {
+        if (prefetchLimit == 0 || !ColorMatcher.isResultCacheEnabled()) {
+            return -1;
+        }
+
+        final long generation = prefetchGenerations.computeIfAbsent(playerId, k -> new AtomicLong()).incrementAndGet();
+        List<Runnable> queued = queuedPrefetches.computeIfAbsent(playerId, k -> new ArrayList<>());
+
+        synchronized (queued) {
+            dequeue(queued);
+
+            for (int color : colors) {
+                if (queued.size() >= prefetchLimit) {
+                    break;
+                }
+                if (ColorMatcher.getCachedMatches(color, category, maxResults, metric) != null) {
+                    continue;
+                }
+
+                Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                        // 開始執行後不再佔用玩家的名額
+                        synchronized (queued) {
+                            queued.remove(this);
+                        }
+                        try {
+                            AtomicLong counter = prefetchGenerations.get(playerId);
+                            if (counter == null || counter.get() != generation) {
+                                return;
+                            }
+                            // 結果由 ColorMatcher 寫入快取，這裡不需要保留
+                            ColorMatcher.findMatchingBlocks(color, category, maxResults, metric);
+                        } catch (Exception e) {
+                            plugin.getLogger().log(Level.FINE, "Error occurred while prefetching color matches", e);
+                        }
+                    }
+                };
+                queued.add(task);
+                prefetchExecutor.execute(task);
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * 從佇列移除尚未開始的預先計算並釋放名額（呼叫端需持有清單的鎖）
+     */
+    private void dequeue(List<Runnable> queued) {
+        for (Runnable task : queued) {
+            prefetchExecutor.remove(task);
+        }
+        queued.clear();
+    }
+
+    /**
+     * 若指定的一輪仍是玩家最新的預先計算，取消其中尚未執行的部分（例如 GUI 關閉時）
+     */
+    public void cancelPrefetch(UUID playerId, long generation) {
+        AtomicLong counter = prefetchGenerations.get(playerId);
+        if (counter != null && counter.compareAndSet(generation, generation + 1)) {
+            List<Runnable> queued = queuedPrefetches.get(playerId);
+            if (queued != null) {
+                synchronized (queued) {
+                    dequeue(queued);
+                }
+            }
+        }
+    }
+
+    /**
+     * 作廢玩家所有未完成的請求（例如 GUI 關閉或已同步取得結果時）
+     */
+    public void cancel(UUID playerId) {
+        generation(playerId).incrementAndGet();
+    }
+
+    /**
+     * 僅在指定請求仍是玩家最新請求時作廢它
+     * 供關閉舊 GUI 時使用，不會影響新 GUI 已提交的請求
+     */
+    public void cancel(UUID playerId, long generation) {
+        AtomicLong counter = generations.get(playerId);
+        if (counter != null) {
+            counter.compareAndSet(generation, generation + 1);
+        }
+    }
+
+    /**
+     * 移除玩家的世代紀錄（玩家離線時）
+     */
+    public void forget(UUID playerId) {
+        AtomicLong counter = generations.remove(playerId);
+        if (counter != null) {
+            counter.incrementAndGet();
+        }
+        AtomicLong prefetchCounter = prefetchGenerations.remove(playerId);
+        if (prefetchCounter != null) {
+            prefetchCounter.incrementAndGet();
+        }
+        List<Runnable> queued = queuedPrefetches.remove(playerId);
+        if (queued != null) {
+            synchronized (queued) {
+                dequeue(queued);
+            }
+        }
+    }
+
+    /**
+     * 關閉執行緒池，未開始的請求將被捨棄
+     */
+    public void shutdown() {
+        generations.clear();
+        prefetchGenerations.clear();
+        queuedPrefetches.clear();
+        executor.shutdownNow();
+        prefetchExecutor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+            prefetchExecutor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private AtomicLong generation(UUID playerId) {
+        return generations.computeIfAbsent(playerId, k -> new AtomicLong());
+    }
+
+    private boolean isLatest(UUID playerId, long generation) {
+        AtomicLong counter = generations.get(playerId);
+        return counter != null && counter.get() == generation;
+    }
+
+    /**
+     * 建立具名的守護執行緒，避免阻止伺服器關閉
+     */
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger counter = new AtomicInteger();
+        private final String prefix;
+        private final int priority;
+
+        WorkerThreadFactory(String prefix, int priority) {
+            this.prefix = prefix;
+            this.priority = priority;
+        }
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package dev.twme.ombre.blockcolors.cache;
+
+import dev.twme.ombre.blockcolors.util.LabConverter;
+import dev.twme.ombre.color.PackedColor;
+
+/**
+ * 固定大小的直接映射 Lab 快取
+ * 每個顏色只對應一個槽位，衝突時直接覆寫，記憶體用量固定
+ */
+public class DirectMappedLabCache implements LabCache {
+    public static final String MODE = "direct-mapped";
+
+    // 每個槽位的估計大小：項目物件 + double[3] + 陣列參考
+    private static final long BYTES_PER_ENTRY = 16 + 40 + 4;
+
+    private final Entry[] slots;
+    private final int mask;
+
+    /**
+     * 快取項目
+     * 欄位皆為 final，可安全地在執行緒之間共享
+     */
+    private static final class Entry {
+        final int rgb;
+        final double[] lab;
+
+        Entry(int rgb, double[] lab) {
+            this.rgb = rgb;
+            this.lab = lab;
+        }
+    }
+
+    /**
+     * @param size 槽位數，會向上取整為 2 的次方
+     */
+    public DirectMappedLabCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(size, 1 << 20)) - 1) << 1;
+        this.slots = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    @Override
+    public double[] getLab(int rgb) {
+        rgb &= 0xFFFFFF;
+        int slot = slotOf(rgb);
+
+        Entry entry = slots[slot];
+        if (entry != null && entry.rgb == rgb) {
+            return entry.lab;
+        }
+
+        double[] lab = LabConverter.rgbToLab(rgb);
+        slots[slot] = new Entry(rgb, lab);
+        return lab;
+    }
+
+    /**
+     * 打散 RGB 位元，避免相近顏色落在同一槽位
+     */
+    private int slotOf(int rgb) {
+        return PackedColor.mix(rgb) & mask;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = null;
+        }
+    }
+
+    @Override
+    public long getEntryCount() {
+        long count = 0;
+        for (Entry entry : slots) {
+            if (entry != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return (long) slots.length * 4 + getEntryCount() * BYTES_PER_ENTRY;
+    }
+
+    @Override
+    public String getMode() {
+        return MODE;
+    }
+
+    public int getCapacity() {
+        return slots.length;
+    }
+}
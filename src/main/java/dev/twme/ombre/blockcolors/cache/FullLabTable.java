@@ -0,0 +1,77 @@
+package dev.twme.ombre.blockcolors.cache;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import dev.twme.ombre.blockcolors.util.LabConverter;
+
+/**
+ * 涵蓋全部 16,777,216 種 RGB 顏色的 Lab 表
+ * 以 float 存放於堆外記憶體（約 192 MiB），首次查詢某顏色時才計算並填入
+ */
+public class FullLabTable implements LabCache {
+    public static final String MODE = "full-table";
+
+    private static final int COLOR_COUNT = 1 << 24;
+
+    // 堆外的 Lab 表，每個顏色佔 3 個 float
+    private final FloatBuffer table;
+
+    // 每個位元代表對應顏色是否已填入
+    // 以 AtomicLongArray 設定旗標，確保讀到旗標時 Lab 值也已可見
+    private final AtomicLongArray populated;
+
+    public FullLabTable() {
+        this.table = ByteBuffer.allocateDirect(COLOR_COUNT * 3 * Float.BYTES)
+            .order(ByteOrder.nativeOrder())
+            .asFloatBuffer();
+        this.populated = new AtomicLongArray(COLOR_COUNT / Long.SIZE);
+    }
+
+    @Override
+    public double[] getLab(int rgb) {
+        rgb &= 0xFFFFFF;
+        int base = rgb * 3;
+        int word = rgb >>> 6;
+        long bit = 1L << rgb;
+
+        if ((populated.get(word) & bit) == 0) {
+            double[] lab = LabConverter.rgbToLab(rgb);
+            table.put(base, (float) lab[0]);
+            table.put(base + 1, (float) lab[1]);
+            table.put(base + 2, (float) lab[2]);
+            populated.getAndUpdate(word, bits -> bits | bit);
+        }
+
+        return new double[]{table.get(base), table.get(base + 1), table.get(base + 2)};
+    }
+
+    @Override
+    public void clear() {
+        // Lab 值由 RGB 決定，永遠不會過期；清除旗標即可讓表格重新填入
+        for (int i = 0; i < populated.length(); i++) {
+            populated.set(i, 0L);
+        }
+    }
+
+    @Override
+    public long getEntryCount() {
+        long count = 0;
+        for (int i = 0; i < populated.length(); i++) {
+            count += Long.bitCount(populated.get(i));
+        }
+        return count;
+    }
+
+    @Override
+    public long getMemoryBytes() {
+        return (long) COLOR_COUNT * 3 * Float.BYTES + (long) populated.length() * Long.BYTES;
+    }
+
+    @Override
+    public String getMode() {
+        return MODE;
+    }
+}
@@ -0,0 +1,51 @@
+package dev.twme.ombre.blockcolors.cache;
+
+/**
+ * 目標顏色的 Lab 值快取
+ * 實作必須為有界且可被多執行緒同時存取
+ */
+public interface LabCache {
+
+    /**
+     * 取得顏色的 Lab 值，未快取時會即時計算
+     * 回傳的陣列不得被呼叫者修改
+     *
+     * @param rgb RGB 整數值
+     * @return Lab 值 [L, a, b]
+     */
+    double[] getLab(int rgb);
+
+    /**
+     * 清除所有已快取的值
+     */
+    void clear();
+
+    /**
+     * 取得目前已快取的顏色數量
+     */
+    long getEntryCount();
+
+    /**
+     * 取得快取佔用的記憶體（位元組，估計值）
+     */
+    long getMemoryBytes();
+
+    /**
+     * 取得快取模式名稱（對應 config.yml 中的設定值）
+     */
+    String getMode();
+
+    /**
+     * 依設定建立 Lab 快取
+     *
+     * @param mode 快取模式（direct-mapped 或 full-table）
+     * @param size direct-mapped 模式的槽位數
+     * @return Lab 快取，未知模式時使用 direct-mapped
+     */
+    static LabCache create(String mode, int size) {
+        if (FullLabTable.MODE.equalsIgnoreCase(mode)) {
+            return new FullLabTable();
+        }
+        return new DirectMappedLabCache(size);
+    }
+}
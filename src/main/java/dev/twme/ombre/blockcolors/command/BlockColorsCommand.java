@@ -1,10 +1,15 @@
 package dev.twme.ombre.blockcolors.command;
 
+import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.logging.Level;
 
+import org.bukkit.Location;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
@@ -14,10 +19,16 @@ import org.bukkit.entity.Player;
 import com.google.common.cache.CacheStats;
 
 import dev.twme.ombre.Ombre;
+import dev.twme.ombre.blockcolors.BlockColorCache;
 import dev.twme.ombre.blockcolors.BlockColorsFeature;
 import dev.twme.ombre.blockcolors.ColorMatcher;
+import dev.twme.ombre.blockcolors.cache.LabCache;
+import dev.twme.ombre.blockcolors.data.BlockCategory;
 import dev.twme.ombre.blockcolors.gui.BlockColorsGUI;
+import dev.twme.ombre.blockcolors.image.ImageArtManager;
+import dev.twme.ombre.blockcolors.image.ImageConversionJob;
 import dev.twme.ombre.i18n.MessageManager;
+import dev.twme.ombre.refresh.RefreshStats;
 import net.kyori.adventure.text.Component;
 
 /**
@@ -86,13 +97,16 @@ public class BlockColorsCommand implements CommandExecutor, TabCompleter {
             case "clear-cache":
                 return handleClearCache(sender);
 
+            case "image":
+                return handleImage(sender, args);
+
             default:
                 if (sender instanceof Player) {
                     sender.sendMessage(msg.getMessage("general.unknown-command", (Player) sender));
                 } else {
                     sender.sendMessage(msg.getMessage("general.unknown-command"));
                 }
-                sender.sendMessage("<yellow>Usage: /bca [reload|cache|clear-cache]</yellow>");
+                sender.sendMessage("<yellow>Usage: /bca [reload|cache|clear-cache|image]</yellow>");
                 return true;
         }
     }
@@ -232,10 +246,47 @@ public class BlockColorsCommand implements CommandExecutor, TabCompleter {
                 sender.sendMessage("§7Misses: §f" + stats.missCount());
             }
         }
+        
+        // Display Lab cache memory usage
+        LabCache labCache = ColorMatcher.getLabCache();
+        String labMemory = formatBytes(labCache.getMemoryBytes());
+        if (player != null) {
+            sender.sendMessage(msg.getMessage("messages.cache.lab-cache", player,
+                "mode", labCache.getMode(), "count", labCache.getEntryCount(), "memory", labMemory));
+        } else {
+            sender.sendMessage("§7Lab Cache: §f" + labCache.getMode() + " (" + labCache.getEntryCount() + " colors, " + labMemory + ")");
+        }
+        
+        // Display background refresh status
+        RefreshStats refresh = plugin.getRefreshScheduler().getStats(BlockColorCache.REFRESH_DATASET);
+        long nextRefresh = refresh.getNextRefreshTime();
+        String age = RefreshStats.formatDuration(refresh.getAgeMillis());
+        String next = RefreshStats.formatDuration(nextRefresh == 0 ? -1 : Math.max(0, nextRefresh - System.currentTimeMillis()));
+        String latency = refresh.getLastLatencyMillis() < 0 ? "-" : String.valueOf(refresh.getLastLatencyMillis());
+        if (player != null) {
+            sender.sendMessage(msg.getMessage("messages.cache.refresh", player,
+                "age", age, "next", next, "latency", latency, "failures", refresh.getConsecutiveFailures()));
+        } else {
+            sender.sendMessage("§7Background Refresh: §fage " + age + ", next in " + next + ", last " + latency
+                + " ms, failures " + refresh.getConsecutiveFailures());
+        }
 
         return true;
     }
 
+    /**
+     * Format a byte count for display
+     */
+    private static String formatBytes(long bytes) {
+        if (bytes >= 1024 * 1024) {
+            return String.format("%.1f MiB", bytes / (1024.0 * 1024.0));
+        }
+        if (bytes >= 1024) {
+            return String.format("%.1f KiB", bytes / 1024.0);
+        }
+        return bytes + " B";
+    }
+
     /**
      * Handle clear-cache subcommand
      */
@@ -263,6 +314,126 @@ public class BlockColorsCommand implements CommandExecutor, TabCompleter {
         return true;
     }
 
+    /**
+     * Handle image subcommand - convert an image into block art
+     * /bca image <file> [place] [all|building|decoration] | cancel | status
+     */
+    private boolean handleImage(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("ombre.blockcolorsapp.image")) {
+            if (sender instanceof Player) {
+                sender.sendMessage(msg.getMessage("general.no-permission", (Player) sender));
+            } else {
+                sender.sendMessage(msg.getMessage("general.no-permission"));
+            }
+            return true;
+        }
+
+        ImageArtManager images = feature.getImageArtManager();
+        String owner = sender instanceof Player ? ((Player) sender).getUniqueId().toString() : "CONSOLE";
+
+        if (args.length < 2) {
+            sendComponent(sender, "commands.blockcolors.image.usage");
+            return true;
+        }
+
+        String action = args[1];
+        if (action.equalsIgnoreCase("cancel")) {
+            sendComponent(sender, images.cancel(owner) ? "commands.blockcolors.image.cancelling" : "commands.blockcolors.image.no-job");
+            return true;
+        }
+        if (action.equalsIgnoreCase("status")) {
+            ImageConversionJob job = images.getJob(owner);
+            if (job == null) {
+                sendComponent(sender, "commands.blockcolors.image.no-job");
+            } else {
+                sendComponent(sender, "commands.blockcolors.image.status",
+                    "file", job.getSourceName(),
+                    "state", job.getState().name().toLowerCase(),
+                    "percent", (int) (job.getProgress() * 100));
+            }
+            return true;
+        }
+
+        boolean place = false;
+        BlockCategory category = BlockCategory.ALL;
+        for (int i = 2; i < args.length; i++) {
+            String option = args[i].toLowerCase();
+            if (option.equals("place")) {
+                place = true;
+                continue;
+            }
+            try {
+                category = BlockCategory.valueOf(option.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                sendComponent(sender, "commands.blockcolors.image.usage");
+                return true;
+            }
+        }
+
+        if (place && !(sender instanceof Player)) {
+            sender.sendMessage(msg.getMessage("general.player-only"));
+            return true;
+        }
+        Location origin = place ? ((Player) sender).getLocation() : null;
+
+        ImageConversionJob job;
+        try {
+            job = images.start(owner, action, category, ColorMatcher.getDefaultMetric(), origin,
+                percent -> runIfEnabled(() -> sendComponent(sender, "commands.blockcolors.image.progress", "percent", percent)));
+        } catch (IllegalStateException e) {
+            sendComponent(sender, "commands.blockcolors.image.already-running");
+            return true;
+        } catch (FileNotFoundException e) {
+            sendComponent(sender, "commands.blockcolors.image.not-found", "file", action);
+            return true;
+        } catch (IOException e) {
+            sendComponent(sender, "commands.blockcolors.image.failed", "error", String.valueOf(e.getMessage()));
+            return true;
+        }
+
+        sendComponent(sender, "commands.blockcolors.image.started", "file", job.getSourceName());
+        job.getCompletion().whenComplete((art, error) -> runIfEnabled(() -> {
+            if (error == null) {
+                if (job.getOutput() != null) {
+                    sendComponent(sender, "commands.blockcolors.image.saved",
+                        "width", art.getWidth(), "height", art.getHeight(),
+                        "blocks", art.countUsedMaterials(), "output", job.getOutput().getName());
+                } else {
+                    sendComponent(sender, "commands.blockcolors.image.placed", "count", job.getPlacedBlocks());
+                }
+            } else if (error instanceof CancellationException) {
+                sendComponent(sender, "commands.blockcolors.image.cancelled");
+            } else {
+                plugin.getLogger().log(Level.WARNING, "Image conversion failed: " + job.getSourceName(), error);
+                sendComponent(sender, "commands.blockcolors.image.failed", "error", String.valueOf(error.getMessage()));
+            }
+        }));
+        return true;
+    }
+
+    /**
+     * 在主執行緒執行（插件已停用時略過）
+     */
+    private void runIfEnabled(Runnable action) {
+        if (plugin.isEnabled()) {
+            plugin.getServer().getScheduler().runTask(plugin, action);
+        }
+    }
+
+    /**
+     * Send a MiniMessage component, localized for players
+     */
+    private void sendComponent(CommandSender sender, String key, Object... replacements) {
+        if (sender instanceof Player) {
+            Object[] withPlayer = new Object[replacements.length + 1];
+            withPlayer[0] = sender;
+            System.arraycopy(replacements, 0, withPlayer, 1, replacements.length);
+            sender.sendMessage(msg.getComponent(key, withPlayer));
+        } else {
+            sender.sendMessage(msg.getComponent(key, replacements));
+        }
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         List<String> completions = new ArrayList<>();
@@ -276,10 +447,29 @@ public class BlockColorsCommand implements CommandExecutor, TabCompleter {
                 completions.add("cache");
                 completions.add("clear-cache");
             }
+            if (sender.hasPermission("ombre.blockcolorsapp.image")) {
+                completions.add("image");
+            }
 
             // 過濾匹配的補全
             String input = args[0].toLowerCase();
             completions.removeIf(s -> !s.toLowerCase().startsWith(input));
+        } else if (args[0].equalsIgnoreCase("image") && sender.hasPermission("ombre.blockcolorsapp.image")
+                && feature.getImageArtManager() != null) {
+            // 第二層為圖片檔名或 cancel/status，之後為選項
+            if (args.length == 2) {
+                completions.add("cancel");
+                completions.add("status");
+                completions.addAll(feature.getImageArtManager().listImages());
+            } else if (!args[1].equalsIgnoreCase("cancel") && !args[1].equalsIgnoreCase("status")) {
+                completions.add("place");
+                for (BlockCategory category : BlockCategory.values()) {
+                    completions.add(category.name().toLowerCase());
+                }
+            }
+
+            String input = args[args.length - 1].toLowerCase();
+            completions.removeIf(s -> !s.toLowerCase().startsWith(input));
         }
 
         return completions;
@@ -11,6 +11,9 @@ import java.util.List;
 public class PlayerPalette {
     private final List<Material> blocks;
     private final int maxSize;
+    
+    // 內容每次變更時遞增，供依調色盤建立的索引與快取判斷是否過期
+    private int version;
 
     public PlayerPalette(int maxSize) {
         this.blocks = new ArrayList<>();
@@ -27,21 +30,30 @@ public class PlayerPalette {
         if (blocks.contains(material)) {
             return false;
         }
-        return blocks.add(material);
+        blocks.add(material);
+        version++;
+        return true;
     }
 
     /**
      * 從調色盤移除方塊
      */
     public boolean removeBlock(Material material) {
-        return blocks.remove(material);
+        if (!blocks.remove(material)) {
+            return false;
+        }
+        version++;
+        return true;
     }
 
     /**
      * 清空調色盤
      */
     public void clear() {
-        blocks.clear();
+        if (!blocks.isEmpty()) {
+            blocks.clear();
+            version++;
+        }
     }
 
     /**
@@ -83,6 +95,7 @@ public class PlayerPalette {
             }
             blocks.add(material);
         }
+        version++;
     }
 
     /**
@@ -91,4 +104,11 @@ public class PlayerPalette {
     public int getMaxSize() {
         return maxSize;
     }
+
+    /**
+     * 取得內容版本（每次新增、移除或替換方塊時遞增）
+     */
+    public int getVersion() {
+        return version;
+    }
 }
@@ -1,6 +1,7 @@
 package dev.twme.ombre.blockcolors.gui;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.bukkit.Bukkit;
@@ -14,11 +15,18 @@ import org.bukkit.inventory.ItemStack;
 import dev.twme.ombre.Ombre;
 import dev.twme.ombre.blockcolors.BlockColorsFeature;
 import dev.twme.ombre.blockcolors.ColorMatcher;
+import dev.twme.ombre.blockcolors.MatchWorker;
 import dev.twme.ombre.blockcolors.data.BlockCategory;
 import dev.twme.ombre.blockcolors.data.ColorMatch;
 import dev.twme.ombre.blockcolors.data.PlayerPalette;
+import dev.twme.ombre.blockcolors.harmony.HarmonyGenerator;
+import dev.twme.ombre.blockcolors.harmony.HarmonyPalette;
+import dev.twme.ombre.blockcolors.harmony.HarmonyScheme;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.metric.StandardMetric;
 import dev.twme.ombre.blockcolors.util.ColorConverter;
 import dev.twme.ombre.blockcolors.util.GuiUtils;
+import dev.twme.ombre.color.PackedColor;
 import net.kyori.adventure.text.Component;
 
 /**
@@ -52,6 +60,7 @@ public class BlockColorsGUI implements InventoryHolder {
     private static final int SLOT_FILTER_ALL = 20;
     private static final int SLOT_FILTER_BUILDING = 21;
     private static final int SLOT_FILTER_DECORATION = 22;
+    private static final int SLOT_FILTER_PALETTE = 23;
     
     // 方塊顯示區域（第4-5行，18個槽位）
     private static final int BLOCKS_START = 27;
@@ -60,6 +69,7 @@ public class BlockColorsGUI implements InventoryHolder {
     
     // 底部功能列（第6行）
     private static final int SLOT_PREV_PAGE = 45;
+    private static final int SLOT_HARMONY = 47;
     private static final int SLOT_PALETTE = 49;
     private static final int SLOT_NEXT_PAGE = 53;
     
@@ -74,10 +84,24 @@ public class BlockColorsGUI implements InventoryHolder {
     private int currentGreen = 255;
     private int currentBlue = 255;
     private BlockCategory currentCategory = BlockCategory.ALL;
+    private boolean paletteFilter = false;
+    private HarmonyScheme harmonyScheme = null; // null 表示一般匹配模式
     private int currentPage = 0;
     private List<ColorMatch> currentMatches = new ArrayList<>();
     
     private final int rgbStep;
+    
+    // 快速預覽使用的低成本度量（null 表示不預覽）
+    private final ColorMetric previewMetric;
+    
+    // 最近一次提交到背景計算、尚未顯示結果的請求世代（-1 表示沒有）
+    private long pendingGeneration = -1;
+    
+    // 關閉 GUI 時作廢了尚未完成的請求，目前顯示的結果不是最新顏色的結果
+    private boolean matchesStale = false;
+    
+    // 最近一輪鄰近顏色預先計算的世代（-1 表示沒有）
+    private long prefetchGeneration = -1;
 
     public BlockColorsGUI(BlockColorsFeature feature, Player player) {
         this.feature = feature;
@@ -86,6 +110,9 @@ public class BlockColorsGUI implements InventoryHolder {
         this.msg = plugin.getMessageManager();
         this.rgbStep = plugin.getConfig().getInt("blockcolors.gui.rgb-step", 5);
         
+        StandardMetric preview = StandardMetric.fromId(plugin.getConfig().getString("blockcolors.matching.preview-metric", "none"));
+        this.previewMetric = preview != null && preview.isCheap() && preview != ColorMatcher.getDefaultMetric() ? preview : null;
+        
         this.inventory = Bukkit.createInventory(this, SIZE, 
             msg.getComponent("blockcolors.gui.title", player));
         
@@ -125,12 +152,13 @@ public class BlockColorsGUI implements InventoryHolder {
         updateCategoryFilters();
         
         // 填充空格
-        for (int i = 23; i < 27; i++) {
+        for (int i = 24; i < 27; i++) {
             inventory.setItem(i, GuiUtils.createFiller());
         }
         
         // 第6行：底部功能
         updatePagination();
+        updateHarmonyButton();
         inventory.setItem(SLOT_PALETTE, GuiUtils.createItem(
             Material.PAINTING, 
             msg.getComponent("blockcolors.gui.my-palette", player),
@@ -237,9 +265,9 @@ public class BlockColorsGUI implements InventoryHolder {
      * 更新類別篩選按鈕
      */
     private void updateCategoryFilters() {
-        boolean isAll = currentCategory == BlockCategory.ALL;
-        boolean isBuilding = currentCategory == BlockCategory.BUILDING;
-        boolean isDecoration = currentCategory == BlockCategory.DECORATION;
+        boolean isAll = !paletteFilter && currentCategory == BlockCategory.ALL;
+        boolean isBuilding = !paletteFilter && currentCategory == BlockCategory.BUILDING;
+        boolean isDecoration = !paletteFilter && currentCategory == BlockCategory.DECORATION;
         
         Component filterHintAll = isAll ? msg.getComponent("blockcolors.gui.filter-current", player) : msg.getComponent("blockcolors.gui.filter-hint", player);
         inventory.setItem(SLOT_FILTER_ALL, GuiUtils.createItem(
@@ -261,18 +289,161 @@ public class BlockColorsGUI implements InventoryHolder {
             msg.getComponent("blockcolors.gui.filter-decoration", player),
             filterHintDecoration
         )); 
+        
+        Component filterHintPalette = paletteFilter ? msg.getComponent("blockcolors.gui.filter-current", player) : msg.getComponent("blockcolors.gui.filter-hint", player);
+        inventory.setItem(SLOT_FILTER_PALETTE, GuiUtils.createItem(
+            Material.ITEM_FRAME,
+            msg.getComponent("blockcolors.gui.filter-palette", player),
+            filterHintPalette
+        ));
+    }
+
+    /**
+     * 更新配色按鈕
+     */
+    private void updateHarmonyButton() {
+        String schemeKey = harmonyScheme != null ? harmonyScheme.getId() : "off";
+        String schemeName = msg.getMessage("blockcolors.gui.harmony-schemes." + schemeKey, player);
+        inventory.setItem(SLOT_HARMONY, GuiUtils.createItem(
+            Material.PRISMARINE_CRYSTALS,
+            msg.getComponent("blockcolors.gui.harmony", player),
+            msg.getComponent("blockcolors.gui.harmony-current", player, java.util.Map.of("scheme", schemeName)),
+            msg.getComponent("blockcolors.gui.harmony-hint", player)
+        ));
     }
 
     /**
      * 更新方塊匹配結果
+     * 快取命中時立即顯示；否則在背景計算，期間保留目前的頁面（或低成本度量的預覽）
      */
     private void updateMatches() {
+        pendingGeneration = -1;
+        matchesStale = false;
+        
         int rgb = ColorConverter.createRgb(currentRed, currentGreen, currentBlue);
-        currentMatches = ColorMatcher.findMatchingBlocks(rgb, currentCategory, 100);
+        MatchWorker worker = feature.getMatchWorker();
+        
+        ColorMetric metric = ColorMatcher.getDefaultMetric();
+        if (harmonyScheme != null) {
+            updateHarmonyMatches(rgb, metric, worker);
+            return;
+        }
+        if (paletteFilter) {
+            // 調色盤範圍的搜尋只涉及少量方塊，直接在主執行緒計算
+            if (worker != null) {
+                worker.cancel(player.getUniqueId());
+            }
+            PlayerPalette palette = feature.getPlayerPalette(player.getUniqueId());
+            showMatches(ColorMatcher.findMatchingBlocks(rgb, palette, 100, metric));
+            return;
+        }
+        
+        List<ColorMatch> cached = ColorMatcher.getCachedMatches(rgb, currentCategory, 100, metric);
+        if (cached != null || worker == null) {
+            if (worker != null) {
+                // 作廢仍在計算中的舊請求，避免稍後覆蓋這次的結果
+                worker.cancel(player.getUniqueId());
+            }
+            showMatches(cached != null ? cached : ColorMatcher.findMatchingBlocks(rgb, currentCategory, 100));
+            prefetchNeighbors(rgb, metric);
+            return;
+        }
+        
+        if (previewMetric != null) {
+            // 先以低成本度量顯示預覽，精確結果完成後再替換
+            showMatches(ColorMatcher.findMatchingBlocks(rgb, currentCategory, 100, previewMetric));
+        }
+        
+        pendingGeneration = worker.submit(player.getUniqueId(), rgb, currentCategory, 100, metric, matches -> {
+            pendingGeneration = -1;
+            showMatches(matches);
+            prefetchNeighbors(rgb, metric);
+        });
+    }
+
+    /**
+     * 更新配色模式的方塊：各目標顏色平分一頁，依顯示順序排列
+     */
+    private void updateHarmonyMatches(int rgb, ColorMetric metric, MatchWorker worker) {
+        HarmonyScheme scheme = harmonyScheme;
+        BlockCategory category = currentCategory;
+        int blocksPerColor = Math.max(1, BLOCKS_PER_PAGE / scheme.getTargetCount());
+        
+        HarmonyPalette cached = HarmonyGenerator.getCached(rgb, scheme, category, blocksPerColor, metric);
+        if (cached != null || worker == null) {
+            if (worker != null) {
+                worker.cancel(player.getUniqueId());
+            }
+            showMatches((cached != null ? cached : HarmonyGenerator.generate(rgb, scheme, category, blocksPerColor, metric)).getAllMatches());
+            return;
+        }
+        
+        pendingGeneration = worker.submit(player.getUniqueId(),
+            () -> HarmonyGenerator.generate(rgb, scheme, category, blocksPerColor, metric),
+            harmony -> {
+                pendingGeneration = -1;
+                showMatches(harmony.getAllMatches());
+            });
+    }
+
+    /**
+     * 預先計算 RGB 按鈕下一步可能到達的六個顏色
+     */
+    private void prefetchNeighbors(int rgb, ColorMetric metric) {
+        MatchWorker worker = feature.getMatchWorker();
+        if (worker == null) {
+            return;
+        }
+        
+        int r = PackedColor.red(rgb);
+        int g = PackedColor.green(rgb);
+        int b = PackedColor.blue(rgb);
+        int[] deltas = {rgbStep, -rgbStep};
+        
+        int[] neighbors = new int[6];
+        int count = 0;
+        for (int delta : deltas) {
+            int[] candidates = {
+                ColorConverter.createRgb(ColorConverter.clampRgb(r + delta), g, b),
+                ColorConverter.createRgb(r, ColorConverter.clampRgb(g + delta), b),
+                ColorConverter.createRgb(r, g, ColorConverter.clampRgb(b + delta))
+            };
+            for (int candidate : candidates) {
+                // 已在邊界時按鈕不會改變顏色
+                if (candidate != rgb) {
+                    neighbors[count++] = candidate;
+                }
+            }
+        }
+        
+        prefetchGeneration = worker.prefetch(player.getUniqueId(), Arrays.copyOf(neighbors, count), currentCategory, 100, metric);
+    }
+
+    /**
+     * 顯示新的匹配結果並回到第一頁
+     */
+    private void showMatches(List<ColorMatch> matches) {
+        currentMatches = matches;
         currentPage = 0;
         updateBlockDisplay();
     }
 
+    /**
+     * GUI 關閉時作廢未完成的匹配請求與預先計算
+     * 被作廢的請求不會再顯示結果，下次開啟時重新計算
+     */
+    public void handleClose() {
+        MatchWorker worker = feature.getMatchWorker();
+        if (worker != null) {
+            if (pendingGeneration != -1) {
+                worker.cancel(player.getUniqueId(), pendingGeneration);
+                pendingGeneration = -1;
+                matchesStale = true;
+            }
+            worker.cancelPrefetch(player.getUniqueId(), prefetchGeneration);
+        }
+    }
+
     /**
      * 更新方塊顯示區域
      */
@@ -451,22 +622,53 @@ public class BlockColorsGUI implements InventoryHolder {
         // 類別篩選
         if (slot == SLOT_FILTER_ALL) {
             currentCategory = BlockCategory.ALL;
+            paletteFilter = false;
             updateCategoryFilters();
             updateMatches();
             return;
         }
         if (slot == SLOT_FILTER_BUILDING) {
             currentCategory = BlockCategory.BUILDING;
+            paletteFilter = false;
             updateCategoryFilters();
             updateMatches();
             return;
         }
         if (slot == SLOT_FILTER_DECORATION) {
             currentCategory = BlockCategory.DECORATION;
+            paletteFilter = false;
             updateCategoryFilters();
             updateMatches();
             return;
         }
+        if (slot == SLOT_FILTER_PALETTE) {
+            // 調色盤篩選與配色模式互斥
+            paletteFilter = true;
+            harmonyScheme = null;
+            updateCategoryFilters();
+            updateHarmonyButton();
+            updateMatches();
+            return;
+        }
+        
+        // 配色模式：左鍵切換方案，右鍵關閉
+        if (slot == SLOT_HARMONY) {
+            if (event.isRightClick()) {
+                harmonyScheme = null;
+            } else if (harmonyScheme == null) {
+                harmonyScheme = HarmonyScheme.values()[0];
+            } else {
+                HarmonyScheme next = harmonyScheme.next();
+                harmonyScheme = next.ordinal() == 0 ? null : next;
+            }
+            if (harmonyScheme != null && paletteFilter) {
+                paletteFilter = false;
+                updateCategoryFilters();
+            }
+            updateHarmonyButton();
+            updateMatches();
+            return;
+        }
         
         // 調色盤
         if (slot == SLOT_PALETTE) {
@@ -637,6 +839,10 @@ public class BlockColorsGUI implements InventoryHolder {
      * 開啟 GUI
      */
     public void open() {
+        if (paletteFilter || matchesStale) {
+            // 調色盤可能在 PaletteGUI 中被修改過；關閉時作廢的請求需要重新提交
+            updateMatches();
+        }
         player.openInventory(inventory);
     }
 
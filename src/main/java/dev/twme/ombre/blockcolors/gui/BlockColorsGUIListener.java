@@ -31,7 +31,8 @@ public class BlockColorsGUIListener implements Listener {
 
     @EventHandler(priority = EventPriority.MONITOR)
     public void onInventoryClose(InventoryCloseEvent event) {
-        // 可以在這裡加入關閉時的清理邏輯
-        // 目前暫時不需要
+        if (event.getInventory().getHolder() instanceof BlockColorsGUI gui) {
+            gui.handleClose();
+        }
     }
 }
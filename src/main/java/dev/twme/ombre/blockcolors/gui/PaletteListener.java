@@ -41,5 +41,10 @@ public class PaletteListener implements Listener {
         
         // 清除記憶體中的調色盤資料
         feature.unloadPlayerPalette(playerId);
+        
+        // 捨棄尚未完成的匹配請求
+        if (feature.getMatchWorker() != null) {
+            feature.getMatchWorker().forget(playerId);
+        }
     }
 }
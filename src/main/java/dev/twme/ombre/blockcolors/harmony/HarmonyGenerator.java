@@ -0,0 +1,148 @@
+package dev.twme.ombre.blockcolors.harmony;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import dev.twme.ombre.blockcolors.ColorMatcher;
+import dev.twme.ombre.blockcolors.data.BlockCategory;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.util.ColorConverter;
+
+/**
+ * 配色方塊產生器
+ * 依配色方案在 LCh 空間推出目標顏色，在同一個類別索引上逐一查詢各目標的方塊，
+ * 結果依 (種子顏色, 方案, 類別) 快取
+ */
+public final class HarmonyGenerator {
+
+    // 快取最近產生的配色結果
+    private static final Cache<HarmonyKey, HarmonyPalette> cache = CacheBuilder.newBuilder()
+        .maximumSize(500)
+        .expireAfterAccess(10, TimeUnit.MINUTES)
+        .build();
+
+    private HarmonyGenerator() {
+    }
+
+    /**
+     * 產生配色方塊（使用快取）
+     *
+     * @param seedColor 種子顏色
+     * @param scheme 配色方案
+     * @param category 方塊類別篩選
+     * @param blocksPerColor 每個目標顏色的方塊數
+     * @param metric 色差度量
+     * @return 配色結果
+     */
+    public static HarmonyPalette generate(int seedColor, HarmonyScheme scheme, BlockCategory category,
+                                          int blocksPerColor, ColorMetric metric) {
+        HarmonyKey key = new HarmonyKey(seedColor & 0xFFFFFF, scheme, category, blocksPerColor, metric);
+        HarmonyPalette palette = cache.getIfPresent(key);
+        if (palette == null) {
+            palette = compute(seedColor & 0xFFFFFF, scheme, category, blocksPerColor, metric);
+            cache.put(key, palette);
+        }
+        return palette;
+    }
+
+    /**
+     * 取得已快取的配色結果（不會觸發計算）
+     *
+     * @return 已快取的結果，若尚未計算則返回 null
+     */
+    public static HarmonyPalette getCached(int seedColor, HarmonyScheme scheme, BlockCategory category,
+                                           int blocksPerColor, ColorMetric metric) {
+        return cache.getIfPresent(new HarmonyKey(seedColor & 0xFFFFFF, scheme, category, blocksPerColor, metric));
+    }
+
+    /**
+     * 清除快取（在重新載入資料時呼叫）
+     */
+    public static void clearCache() {
+        cache.invalidateAll();
+    }
+
+    private static HarmonyPalette compute(int seedColor, HarmonyScheme scheme, BlockCategory category,
+                                          int blocksPerColor, ColorMetric metric) {
+        double[][] lchTargets = scheme.targets(ColorConverter.labToLch(ColorConverter.rgbToLab(seedColor)));
+        int count = lchTargets.length;
+
+        // 目標直接以 Lab 查詢，色相旋轉後超出色域的顏色不會因截斷而偏移
+        int[] targetColors = new int[count];
+        double[][] targetLabs = new double[count][];
+        for (int i = 0; i < count; i++) {
+            double[] lch = lchTargets[i];
+            targetLabs[i] = ColorConverter.lchToLab(lch[0], lch[1], lch[2]);
+            targetColors[i] = ColorConverter.labToRgb(targetLabs[i][0], targetLabs[i][1], targetLabs[i][2]);
+        }
+
+        // 每組多取候選，足以略過被前面組別選走的方塊
+        List<List<ColorMatch>> candidates = ColorMatcher.findMatchingBlocks(
+            targetColors, targetLabs, category, blocksPerColor * count, metric);
+
+        Set<Material> used = new HashSet<>();
+        List<List<ColorMatch>> groups = new ArrayList<>(count);
+        for (List<ColorMatch> group : candidates) {
+            List<ColorMatch> picked = new ArrayList<>(blocksPerColor);
+            for (ColorMatch match : group) {
+                if (picked.size() >= blocksPerColor) {
+                    break;
+                }
+                if (used.add(match.getBlock().getMaterial())) {
+                    picked.add(match);
+                }
+            }
+            groups.add(picked);
+        }
+
+        return new HarmonyPalette(scheme, seedColor, targetColors, groups);
+    }
+
+    /**
+     * 配色結果快取的鍵值
+     */
+    private static final class HarmonyKey {
+        private final int seedColor;
+        private final HarmonyScheme scheme;
+        private final BlockCategory category;
+        private final int blocksPerColor;
+        private final ColorMetric metric;
+
+        HarmonyKey(int seedColor, HarmonyScheme scheme, BlockCategory category, int blocksPerColor, ColorMetric metric) {
+            this.seedColor = seedColor;
+            this.scheme = scheme;
+            this.category = category;
+            this.blocksPerColor = blocksPerColor;
+            this.metric = metric;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof HarmonyKey)) return false;
+
+            HarmonyKey that = (HarmonyKey) obj;
+            return seedColor == that.seedColor && scheme == that.scheme && category == that.category
+                && blocksPerColor == that.blocksPerColor && metric.equals(that.metric);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = seedColor;
+            result = 31 * result + scheme.hashCode();
+            result = 31 * result + category.hashCode();
+            result = 31 * result + blocksPerColor;
+            result = 31 * result + metric.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.twme.ombre.blockcolors.harmony;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+
+/**
+ * 配色結果
+ * 每個目標顏色對應一組方塊，同一個方塊不會出現在多組中
+ */
+public class HarmonyPalette {
+    private final HarmonyScheme scheme;
+    private final int seedColor;
+    private final int[] targetColors;
+    private final List<List<ColorMatch>> groups;
+
+    HarmonyPalette(HarmonyScheme scheme, int seedColor, int[] targetColors, List<List<ColorMatch>> groups) {
+        this.scheme = scheme;
+        this.seedColor = seedColor;
+        this.targetColors = targetColors;
+        this.groups = Collections.unmodifiableList(groups);
+    }
+
+    public HarmonyScheme getScheme() {
+        return scheme;
+    }
+
+    public int getSeedColor() {
+        return seedColor;
+    }
+
+    /**
+     * 取得各目標顏色（截斷到 sRGB 色域）
+     */
+    public int[] getTargetColors() {
+        return targetColors.clone();
+    }
+
+    /**
+     * 取得各目標顏色的匹配方塊，順序與 {@link #getTargetColors()} 相同
+     */
+    public List<List<ColorMatch>> getGroups() {
+        return groups;
+    }
+
+    /**
+     * 依組別順序串接所有方塊
+     */
+    public List<ColorMatch> getAllMatches() {
+        List<ColorMatch> all = new ArrayList<>();
+        for (List<ColorMatch> group : groups) {
+            all.addAll(group);
+        }
+        return all;
+    }
+}
@@ -0,0 +1,116 @@
+package dev.twme.ombre.blockcolors.harmony;
+
+/**
+ * 配色方案
+ * 在 LCh 空間中由種子顏色推出目標顏色：互補、類似、三角以色相旋轉，單色以明度變化
+ */
+public enum HarmonyScheme {
+    /**
+     * 互補色：種子與色相相差 180° 的顏色
+     */
+    COMPLEMENTARY("complementary") {
+        @Override
+        public double[][] targets(double[] seedLch) {
+            return rotate(seedLch, 0, 180);
+        }
+    },
+
+    /**
+     * 類似色：種子與左右各 30° 的顏色
+     */
+    ANALOGOUS("analogous") {
+        @Override
+        public double[][] targets(double[] seedLch) {
+            return rotate(seedLch, -30, 0, 30);
+        }
+    },
+
+    /**
+     * 三角色：色相平均分成三等份
+     */
+    TRIADIC("triadic") {
+        @Override
+        public double[][] targets(double[] seedLch) {
+            return rotate(seedLch, 0, 120, 240);
+        }
+    },
+
+    /**
+     * 單色：相同色相與色度，不同明度
+     */
+    MONOCHROME("monochrome") {
+        @Override
+        public double[][] targets(double[] seedLch) {
+            double[] offsets = {-30, -15, 0, 15, 30};
+            double[][] targets = new double[offsets.length][];
+            for (int i = 0; i < offsets.length; i++) {
+                double l = Math.max(MIN_LIGHTNESS, Math.min(MAX_LIGHTNESS, seedLch[0] + offsets[i]));
+                targets[i] = new double[]{l, seedLch[1], seedLch[2]};
+            }
+            return targets;
+        }
+    };
+
+    // 單色方案的明度範圍，避免全部落在純黑或純白
+    private static final double MIN_LIGHTNESS = 5;
+    private static final double MAX_LIGHTNESS = 95;
+
+    private final String id;
+
+    HarmonyScheme(String id) {
+        this.id = id;
+    }
+
+    /**
+     * 由種子顏色推出目標顏色
+     *
+     * @param seedLch 種子顏色的 LCh 值 [L, C, h]
+     * @return 目標顏色的 LCh 值，依顯示順序排列
+     */
+    public abstract double[][] targets(double[] seedLch);
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * 取得此方案產生的目標顏色數
+     */
+    public int getTargetCount() {
+        return targets(new double[3]).length;
+    }
+
+    /**
+     * 取得下一個方案（循環）
+     */
+    public HarmonyScheme next() {
+        HarmonyScheme[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+
+    /**
+     * 依 ID 取得方案
+     *
+     * @return 對應的方案，找不到時返回 null
+     */
+    public static HarmonyScheme fromId(String id) {
+        for (HarmonyScheme scheme : values()) {
+            if (scheme.id.equalsIgnoreCase(id)) {
+                return scheme;
+            }
+        }
+        return null;
+    }
+
+    private static double[][] rotate(double[] seedLch, double... degrees) {
+        double[][] targets = new double[degrees.length][];
+        for (int i = 0; i < degrees.length; i++) {
+            double h = (seedLch[2] + degrees[i]) % 360;
+            if (h < 0) {
+                h += 360;
+            }
+            targets[i] = new double[]{seedLch[0], seedLch[1], h};
+        }
+        return targets;
+    }
+}
@@ -0,0 +1,135 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.Material;
+
+/**
+ * 圖片轉換後的方塊畫
+ * 以調色盤索引儲存每個像素對應的方塊，-1 表示透明（不放置方塊）
+ */
+public class BlockArt {
+
+    /**
+     * 檔案格式識別碼與版本
+     */
+    public static final int MAGIC = 0x4F4D4241; // "OMBA"
+    public static final int FORMAT_VERSION = 1;
+
+    private final int width;
+    private final int height;
+    private final Material[] palette;
+    private final short[] cells;
+
+    BlockArt(int width, int height, Material[] palette, short[] cells) {
+        this.width = width;
+        this.height = height;
+        this.palette = palette;
+        this.cells = cells;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * 取得指定位置的方塊
+     *
+     * @return 方塊材質，透明像素返回 null
+     */
+    public Material getMaterial(int x, int y) {
+        short index = cells[y * width + x];
+        return index < 0 ? null : palette[index];
+    }
+
+    /**
+     * 計算實際使用的方塊種類數
+     */
+    public int countUsedMaterials() {
+        boolean[] used = new boolean[palette.length];
+        int count = 0;
+        for (short index : cells) {
+            if (index >= 0 && !used[index]) {
+                used[index] = true;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 寫入方塊畫檔案（gzip 壓縮）
+     * 先寫入暫存檔再取代目標檔案，中途失敗不會留下不完整的檔案
+     *
+     * 格式：magic、版本、寬、高、調色盤（材質名稱）、
+     * 以 (索引 + 1, 連續長度) 編碼的像素資料，索引 0 表示透明
+     */
+    public void save(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (parent != null && !parent.exists()) {
+            parent.mkdirs();
+        }
+
+        // 只寫入實際使用的方塊，重新編號以縮小調色盤
+        short[] remap = new short[palette.length];
+        int used = 0;
+        for (short index : cells) {
+            if (index >= 0 && remap[index] == 0) {
+                remap[index] = (short) ++used;
+            }
+        }
+        Material[] compact = new Material[used];
+        for (int i = 0; i < palette.length; i++) {
+            if (remap[i] != 0) {
+                compact[remap[i] - 1] = palette[i];
+            }
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(temp), 65536)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(width);
+            out.writeInt(height);
+
+            out.writeInt(compact.length);
+            for (Material material : compact) {
+                out.writeUTF(material.name());
+            }
+
+            int i = 0;
+            while (i < cells.length) {
+                short index = cells[i];
+                int run = 1;
+                while (i + run < cells.length && cells[i + run] == index) {
+                    run++;
+                }
+                writeVarInt(out, index < 0 ? 0 : remap[index]);
+                writeVarInt(out, run);
+                i += run;
+            }
+        }
+
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+}
@@ -0,0 +1,128 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * 分批將方塊畫放置到世界中
+ * 每個 tick 只使用固定的時間預算，避免大型圖片造成伺服器延遲。
+ * 圖片的 x 對應世界 +X，y 對應世界 +Z，放置在起點的高度上
+ */
+public class BlockArtPlacer implements Runnable {
+
+    // 每放置這麼多個方塊檢查一次時間，減少 System.nanoTime 的呼叫
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private final JavaPlugin plugin;
+    private final BlockArt art;
+    private final World world;
+    private final int originX;
+    private final int originY;
+    private final int originZ;
+    private final long budgetNanos;
+    private final int total;
+
+    private final CompletableFuture<Integer> completion = new CompletableFuture<>();
+
+    private BukkitTask task;
+
+    // 下一個要處理的像素與已放置數，只在主執行緒寫入，每個 tick 結束時更新一次
+    private volatile int cursor;
+    private volatile int placed;
+    private volatile boolean cancelled;
+
+    public BlockArtPlacer(JavaPlugin plugin, BlockArt art, Location origin, long budgetNanos) {
+        this.plugin = plugin;
+        this.art = art;
+        this.world = origin.getWorld();
+        this.originX = origin.getBlockX();
+        this.originY = origin.getBlockY();
+        this.originZ = origin.getBlockZ();
+        this.budgetNanos = budgetNanos;
+        this.total = art.getWidth() * art.getHeight();
+    }
+
+    /**
+     * 開始放置（可從任何執行緒呼叫）
+     *
+     * @return 完成時返回已放置的方塊數；取消時以 {@link CancellationException} 結束
+     */
+    public CompletableFuture<Integer> start() {
+        plugin.getServer().getScheduler().runTask(plugin, () -> {
+            if (cancelled) {
+                completion.completeExceptionally(new CancellationException("Block placement cancelled"));
+                return;
+            }
+            task = plugin.getServer().getScheduler().runTaskTimer(plugin, this, 0L, 1L);
+        });
+        return completion;
+    }
+
+    @Override
+    public void run() {
+        if (cancelled) {
+            stop();
+            completion.completeExceptionally(new CancellationException("Block placement cancelled"));
+            return;
+        }
+
+        long deadline = System.nanoTime() + budgetNanos;
+        int width = art.getWidth();
+        int position = cursor;
+        int count = placed;
+
+        while (position < total) {
+            int x = position % width;
+            int y = position / width;
+            position++;
+
+            Material material = art.getMaterial(x, y);
+            if (material != null) {
+                world.getBlockAt(originX + x, originY, originZ + y).setType(material, false);
+                count++;
+            }
+
+            if ((position % TIME_CHECK_INTERVAL) == 0 && System.nanoTime() > deadline) {
+                break;
+            }
+        }
+        cursor = position;
+        placed = count;
+
+        if (position >= total) {
+            stop();
+            completion.complete(count);
+        }
+    }
+
+    private void stop() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * 取消放置，已放置的方塊會保留
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * 取得放置進度 (0.0 - 1.0)
+     */
+    public double getProgress() {
+        return total == 0 ? 1 : (double) cursor / total;
+    }
+
+    public int getPlaced() {
+        return placed;
+    }
+}
@@ -0,0 +1,41 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * 以完整解碼的圖片提供像素
+ * 用於無法逐列解碼的格式（例如交錯掃描的 PNG）
+ */
+class BufferedImageRows implements PixelRows {
+    private final BufferedImage image;
+    private int rowsRead;
+
+    BufferedImageRows(BufferedImage image) {
+        this.image = image;
+    }
+
+    @Override
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    @Override
+    public int readRows(int[] argb, int maxRows) {
+        int rows = Math.min(maxRows, image.getHeight() - rowsRead);
+        if (rows > 0) {
+            image.getRGB(0, rowsRead, image.getWidth(), rows, argb, 0, image.getWidth());
+            rowsRead += rows;
+        }
+        return rows;
+    }
+
+    @Override
+    public void close() {
+        image.flush();
+    }
+}
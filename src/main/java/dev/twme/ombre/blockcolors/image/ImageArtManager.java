@@ -0,0 +1,207 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import org.bukkit.Location;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import dev.twme.ombre.blockcolors.data.BlockCategory;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+
+/**
+ * 圖片轉方塊畫管理器
+ * 管理轉換用的執行緒池，並限制每個使用者同時只能有一個工作
+ */
+public class ImageArtManager {
+
+    /**
+     * 方塊畫輸出檔案的副檔名
+     */
+    public static final String OUTPUT_EXTENSION = ".blockart";
+
+    private final JavaPlugin plugin;
+    private final File imageFolder;
+
+    // 每個工作一條讀取（解碼）執行緒，匹配則共用區塊執行緒池
+    private final ExecutorService readerExecutor;
+    private final ExecutorService tileExecutor;
+
+    private final int maxPixels;
+    private final int stripRows;
+    private final int tileWidth;
+    private final int quantizeBits;
+    private final long placeBudgetNanos;
+
+    // 使用者（玩家 UUID 或 CONSOLE）-> 進行中的工作
+    private final Map<String, ImageConversionJob> jobs = new ConcurrentHashMap<>();
+
+    public ImageArtManager(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.imageFolder = new File(plugin.getDataFolder(), "images");
+        if (!imageFolder.exists()) {
+            imageFolder.mkdirs();
+        }
+
+        this.maxPixels = Math.max(1, plugin.getConfig().getInt("blockcolors.image.max-pixels", 4194304));
+        this.stripRows = Math.max(1, plugin.getConfig().getInt("blockcolors.image.strip-rows", 64));
+        this.tileWidth = Math.max(16, plugin.getConfig().getInt("blockcolors.image.tile-width", 128));
+        this.quantizeBits = Math.max(4, Math.min(7, plugin.getConfig().getInt("blockcolors.image.quantize-bits", 6)));
+        this.placeBudgetNanos = Math.max(1, plugin.getConfig().getLong("blockcolors.image.place-budget-ms", 5)) * 1_000_000L;
+
+        int threads = plugin.getConfig().getInt("blockcolors.image.threads", 0);
+        if (threads <= 0) {
+            threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        }
+        this.readerExecutor = Executors.newCachedThreadPool(threadFactory("Ombre-ImageReader-"));
+        this.tileExecutor = Executors.newFixedThreadPool(threads, threadFactory("Ombre-ImageTile-"));
+    }
+
+    /**
+     * 開始轉換圖片
+     *
+     * @param owner 工作擁有者的識別碼
+     * @param fileName 圖片檔名（位於 images 資料夾）
+     * @param category 使用的方塊類別
+     * @param metric 色差度量
+     * @param origin 放置起點，為 null 時輸出到同名的 .blockart 檔案
+     * @param progressListener 轉換進度回報（在背景執行緒上呼叫）
+     * @return 已開始的工作
+     * @throws IllegalStateException 擁有者已有進行中的工作
+     * @throws FileNotFoundException 圖片不存在或位於 images 資料夾之外
+     */
+    public ImageConversionJob start(String owner, String fileName, BlockCategory category, ColorMetric metric,
+                                    Location origin, IntConsumer progressListener) throws IOException {
+        File source = resolveImage(fileName);
+
+        File output = null;
+        if (origin == null) {
+            String name = source.getName();
+            int dot = name.lastIndexOf('.');
+            output = new File(imageFolder, (dot > 0 ? name.substring(0, dot) : name) + OUTPUT_EXTENSION);
+        }
+
+        ImageConversionJob job = new ImageConversionJob(this, source, category, metric, output,
+            origin == null ? null : origin.clone(), progressListener);
+        if (jobs.putIfAbsent(owner, job) != null) {
+            throw new IllegalStateException("A conversion is already running for " + owner);
+        }
+        readerExecutor.execute(job::run);
+        return job;
+    }
+
+    /**
+     * 解析 images 資料夾中的圖片，拒絕資料夾以外的路徑
+     */
+    private File resolveImage(String fileName) throws IOException {
+        File folder = imageFolder.getCanonicalFile();
+        File file = new File(folder, fileName).getCanonicalFile();
+        if (!file.toPath().startsWith(folder.toPath()) || !file.isFile()) {
+            throw new FileNotFoundException(fileName);
+        }
+        return file;
+    }
+
+    /**
+     * 列出 images 資料夾中的圖片（供指令補全）
+     */
+    public List<String> listImages() {
+        List<String> names = new ArrayList<>();
+        File[] files = imageFolder.listFiles();
+        if (files == null) {
+            return names;
+        }
+        for (File file : files) {
+            String lower = file.getName().toLowerCase();
+            if (file.isFile() && (lower.endsWith(".png") || lower.endsWith(".jpg")
+                    || lower.endsWith(".jpeg") || lower.endsWith(".gif") || lower.endsWith(".bmp"))) {
+                names.add(file.getName());
+            }
+        }
+        return names;
+    }
+
+    public ImageConversionJob getJob(String owner) {
+        return jobs.get(owner);
+    }
+
+    /**
+     * 取消擁有者進行中的工作
+     *
+     * @return 是否有工作被取消
+     */
+    public boolean cancel(String owner) {
+        ImageConversionJob job = jobs.get(owner);
+        if (job == null) {
+            return false;
+        }
+        job.cancel();
+        return true;
+    }
+
+    /**
+     * 工作結束時由 {@link ImageConversionJob} 呼叫
+     */
+    void remove(ImageConversionJob job) {
+        jobs.values().remove(job);
+    }
+
+    /**
+     * 取消所有工作並關閉執行緒池
+     */
+    public void shutdown() {
+        for (ImageConversionJob job : jobs.values()) {
+            job.cancel();
+        }
+        jobs.clear();
+        readerExecutor.shutdownNow();
+        tileExecutor.shutdownNow();
+    }
+
+    JavaPlugin getPlugin() {
+        return plugin;
+    }
+
+    ExecutorService getTileExecutor() {
+        return tileExecutor;
+    }
+
+    int getMaxPixels() {
+        return maxPixels;
+    }
+
+    int getStripRows() {
+        return stripRows;
+    }
+
+    int getTileWidth() {
+        return tileWidth;
+    }
+
+    int getQuantizeBits() {
+        return quantizeBits;
+    }
+
+    long getPlaceBudgetNanos() {
+        return placeBudgetNanos;
+    }
+
+    private static ThreadFactory threadFactory(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
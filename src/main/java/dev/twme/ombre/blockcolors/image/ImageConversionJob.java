@@ -0,0 +1,375 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+
+import dev.twme.ombre.blockcolors.ColorMatcher;
+import dev.twme.ombre.blockcolors.data.BlockCategory;
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+
+/**
+ * 圖片轉方塊畫的工作
+ * 在背景逐段 (strip) 解碼圖片，每段切成多個區塊 (tile) 平行匹配；
+ * 解碼下一段的同時匹配上一段。完成後寫入檔案，或交給 {@link BlockArtPlacer} 分批放置
+ */
+public class ImageConversionJob {
+
+    /**
+     * 工作狀態
+     */
+    public enum State {
+        CONVERTING,
+        SAVING,
+        PLACING,
+        DONE,
+        FAILED,
+        CANCELLED
+    }
+
+    // 透明度低於此值的像素不放置方塊
+    private static final int ALPHA_THRESHOLD = 128;
+
+    private final ImageArtManager manager;
+    private final File source;
+    private final BlockCategory category;
+    private final ColorMetric metric;
+    private final File output;
+    private final Location origin;
+    private final IntConsumer progressListener;
+
+    private final CompletableFuture<BlockArt> completion = new CompletableFuture<>();
+    private final AtomicInteger rowsDone = new AtomicInteger();
+
+    private volatile State state = State.CONVERTING;
+    private volatile boolean cancelled;
+    private volatile int height;
+    private volatile BlockArtPlacer placer;
+
+    // 匹配結果使用的方塊調色盤，依首次出現的順序編號
+    private final Map<Material, Short> paletteIndex = new ConcurrentHashMap<>();
+    private final List<Material> palette = new ArrayList<>();
+
+    // 量化後顏色 -> 調色盤索引 + 1（0 表示尚未計算），相同的量化顏色只匹配一次
+    private final int quantizeBits;
+    private final int[] quantizedCache;
+
+    /**
+     * @param output 輸出檔案，放置到世界時為 null
+     * @param origin 放置起點，輸出到檔案時為 null
+     * @param progressListener 轉換進度每增加 10% 時以百分比呼叫（在背景執行緒上）
+     */
+    ImageConversionJob(ImageArtManager manager, File source, BlockCategory category, ColorMetric metric,
+                       File output, Location origin, IntConsumer progressListener) {
+        this.manager = manager;
+        this.source = source;
+        this.category = category;
+        this.metric = metric;
+        this.output = output;
+        this.origin = origin;
+        this.progressListener = progressListener;
+        this.quantizeBits = manager.getQuantizeBits();
+        this.quantizedCache = new int[1 << (3 * quantizeBits)];
+    }
+
+    /**
+     * 執行轉換（在讀取執行緒上呼叫）
+     */
+    void run() {
+        try {
+            BlockArt art = convert();
+            checkCancelled();
+
+            if (output != null) {
+                state = State.SAVING;
+                art.save(output);
+                finish(art);
+                return;
+            }
+
+            state = State.PLACING;
+            BlockArtPlacer newPlacer = new BlockArtPlacer(manager.getPlugin(), art, origin, manager.getPlaceBudgetNanos());
+            placer = newPlacer;
+            if (cancelled) {
+                newPlacer.cancel();
+            }
+            newPlacer.start().whenComplete((placed, error) -> {
+                if (error != null) {
+                    fail(error);
+                } else {
+                    finish(art);
+                }
+            });
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private BlockArt convert() throws IOException, InterruptedException {
+        try (PixelRows rows = open()) {
+            int width = rows.getWidth();
+            int imageHeight = rows.getHeight();
+            checkSize(width, imageHeight);
+            height = imageHeight;
+
+            short[] cells = new short[width * imageHeight];
+            int stripRows = manager.getStripRows();
+            int tileWidth = manager.getTileWidth();
+
+            // 兩組緩衝區輪流使用：解碼下一段時，上一段仍在匹配
+            int[][] buffers = {new int[width * stripRows], new int[width * stripRows]};
+            List<Future<?>> pending = new ArrayList<>();
+            int lastReported = 0;
+
+            int y = 0;
+            for (int strip = 0; y < imageHeight; strip++) {
+                checkCancelled();
+                int[] buffer = buffers[strip & 1];
+                int count = rows.readRows(buffer, stripRows);
+                if (count == 0) {
+                    break;
+                }
+
+                lastReported = awaitStrip(pending, y, lastReported);
+
+                final int stripY = y;
+                for (int x0 = 0; x0 < width; x0 += tileWidth) {
+                    final int from = x0;
+                    final int to = Math.min(x0 + tileWidth, width);
+                    pending.add(manager.getTileExecutor().submit(() ->
+                        matchTile(buffer, width, count, from, to, cells, stripY)));
+                }
+                y += count;
+            }
+            awaitStrip(pending, y, lastReported);
+
+            return new BlockArt(width, imageHeight, palette.toArray(new Material[0]), cells);
+        }
+    }
+
+    /**
+     * 開啟圖片：PNG 逐列解碼，其他格式或交錯掃描的 PNG 改用 ImageIO 完整解碼。
+     * 完整解碼前先只讀取標頭中的尺寸，超過像素上限的圖片不會被解碼
+     */
+    private PixelRows open() throws IOException {
+        FileInputStream input = new FileInputStream(source);
+        try {
+            return new PngStripReader(input, manager.getMaxPixels());
+        } catch (PngStripReader.UnsupportedFormatException e) {
+            input.close();
+        } catch (IOException | RuntimeException e) {
+            input.close();
+            throw e;
+        }
+
+        try (ImageInputStream stream = ImageIO.createImageInputStream(source)) {
+            Iterator<ImageReader> readers = stream != null ? ImageIO.getImageReaders(stream) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IOException("Unsupported image format: " + source.getName());
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(stream, true, true);
+                checkSize(reader.getWidth(0), reader.getHeight(0));
+                BufferedImage image = reader.read(0);
+                return new BufferedImageRows(image);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * 檢查圖片尺寸是否在像素上限內
+     */
+    private void checkSize(int width, int height) throws IOException {
+        if ((long) width * height > manager.getMaxPixels()) {
+            throw new IOException("Image is too large: " + width + "x" + height
+                + " (limit " + manager.getMaxPixels() + " pixels)");
+        }
+    }
+
+    /**
+     * 等待上一段的所有區塊完成並回報進度
+     *
+     * @param completedRows 等待完成後已處理的總列數
+     * @return 最後回報的百分比
+     */
+    private int awaitStrip(List<Future<?>> pending, int completedRows, int lastReported) throws InterruptedException {
+        if (pending.isEmpty()) {
+            return lastReported;
+        }
+        try {
+            for (Future<?> future : pending) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        pending.clear();
+        rowsDone.set(completedRows);
+
+        int percent = (int) (getProgress() * 100);
+        if (progressListener != null && percent / 10 > lastReported / 10 && percent < 100) {
+            progressListener.accept(percent / 10 * 10);
+            return percent;
+        }
+        return lastReported;
+    }
+
+    /**
+     * 匹配一個區塊：緩衝區中第 from 到 to 欄的所有列
+     */
+    private Void matchTile(int[] buffer, int width, int count, int from, int to, short[] cells, int stripY) {
+        for (int row = 0; row < count; row++) {
+            if (cancelled) {
+                return null;
+            }
+            int offset = row * width;
+            int cellOffset = (stripY + row) * width;
+            for (int x = from; x < to; x++) {
+                int argb = buffer[offset + x];
+                cells[cellOffset + x] = (argb >>> 24) < ALPHA_THRESHOLD ? -1 : lookup(argb & 0xFFFFFF);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 以量化後的顏色查詢匹配的方塊
+     * 多個執行緒可能同時計算同一個顏色，但結果相同，重複寫入不影響正確性
+     */
+    private short lookup(int rgb) {
+        int shift = 8 - quantizeBits;
+        int r = (rgb >> 16 & 0xFF) >> shift;
+        int g = (rgb >> 8 & 0xFF) >> shift;
+        int b = (rgb & 0xFF) >> shift;
+        int key = (r << (2 * quantizeBits)) | (g << quantizeBits) | b;
+
+        int cached = quantizedCache[key];
+        if (cached != 0) {
+            return (short) (cached - 1);
+        }
+
+        // 以量化區間的中心作為代表色
+        int half = shift > 0 ? 1 << (shift - 1) : 0;
+        int representative = ((r << shift | half) << 16) | ((g << shift | half) << 8) | (b << shift | half);
+
+        BlockColorData match = ColorMatcher.findBestMatch(representative, category, metric);
+        if (match == null) {
+            throw new IllegalStateException("No blocks available in category " + category);
+        }
+        short index = indexOf(match.getMaterial());
+        quantizedCache[key] = index + 1;
+        return index;
+    }
+
+    private short indexOf(Material material) {
+        Short index = paletteIndex.get(material);
+        if (index != null) {
+            return index;
+        }
+        synchronized (palette) {
+            index = paletteIndex.get(material);
+            if (index == null) {
+                index = (short) palette.size();
+                palette.add(material);
+                paletteIndex.put(material, index);
+            }
+            return index;
+        }
+    }
+
+    private void checkCancelled() {
+        if (cancelled) {
+            throw new CancellationException("Image conversion cancelled");
+        }
+    }
+
+    private void finish(BlockArt art) {
+        state = State.DONE;
+        manager.remove(this);
+        completion.complete(art);
+    }
+
+    private void fail(Throwable error) {
+        state = error instanceof CancellationException ? State.CANCELLED : State.FAILED;
+        manager.remove(this);
+        completion.completeExceptionally(error);
+    }
+
+    /**
+     * 取消工作：轉換中的工作會在下一段之前停止，放置中的工作會在下一個 tick 停止
+     */
+    public void cancel() {
+        cancelled = true;
+        BlockArtPlacer currentPlacer = placer;
+        if (currentPlacer != null) {
+            currentPlacer.cancel();
+        }
+    }
+
+    /**
+     * 取得目前階段的進度 (0.0 - 1.0)
+     */
+    public double getProgress() {
+        BlockArtPlacer currentPlacer = placer;
+        if (state == State.PLACING && currentPlacer != null) {
+            return currentPlacer.getProgress();
+        }
+        int total = height;
+        return total == 0 ? 0 : (double) rowsDone.get() / total;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getSourceName() {
+        return source.getName();
+    }
+
+    public File getOutput() {
+        return output;
+    }
+
+    /**
+     * 取得已放置的方塊數（僅放置模式）
+     */
+    public int getPlacedBlocks() {
+        BlockArtPlacer currentPlacer = placer;
+        return currentPlacer != null ? currentPlacer.getPlaced() : 0;
+    }
+
+    /**
+     * 工作完成時完成的 Future；取消時以 {@link CancellationException} 結束
+     */
+    public CompletableFuture<BlockArt> getCompletion() {
+        return completion;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 由上而下逐列提供像素的圖片來源
+ */
+interface PixelRows extends Closeable {
+
+    int getWidth();
+
+    int getHeight();
+
+    /**
+     * 讀取接下來的多列像素
+     *
+     * @param argb 輸出陣列，長度至少為 width * maxRows，依列排列的 0xAARRGGBB 值
+     * @param maxRows 最多讀取的列數
+     * @return 實際讀取的列數，已讀完全部列時為 0
+     */
+    int readRows(int[] argb, int maxRows) throws IOException;
+}
@@ -0,0 +1,460 @@
+package dev.twme.ombre.blockcolors.image;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * 逐列解碼的 PNG 讀取器
+ * 只保留目前與上一列的原始資料，記憶體用量與圖片高度無關。
+ * 支援所有非交錯 (non-interlaced) 的色彩類型與位元深度
+ */
+public class PngStripReader implements PixelRows {
+
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    // 單列原始資料的上限，避免陣列大小溢位
+    private static final long MAX_ROW_BYTES = Integer.MAX_VALUE - 8;
+
+    private static final int TYPE_GRAY = 0;
+    private static final int TYPE_RGB = 2;
+    private static final int TYPE_PALETTE = 3;
+    private static final int TYPE_GRAY_ALPHA = 4;
+    private static final int TYPE_RGBA = 6;
+
+    private final DataInputStream in;
+    private final int width;
+    private final int height;
+    private final int bitDepth;
+    private final int colorType;
+    private final int channels;
+
+    // 濾波器所使用的每像素位元組數（至少 1）
+    private final int filterStride;
+    private final int rowBytes;
+
+    private int[] palette;
+
+    // tRNS 指定的透明色，以原始位元深度表示（灰階與真彩色圖片使用）
+    private int transparentKey = -1;
+    private int[] transparentRgb;
+
+    // InflaterInputStream 不會結束呼叫端提供的 Inflater，需在 close() 時自行釋放
+    private Inflater inflater;
+    private InputStream pixelData;
+    private byte[] currentRow;
+    private byte[] previousRow;
+    private int rowsRead;
+
+    /**
+     * 讀取 PNG 標頭並定位到影像資料
+     *
+     * @throws UnsupportedFormatException 檔案不是 PNG 或無法逐列解碼（例如交錯掃描）
+     * @param input PNG 檔案內容
+     * @param maxPixels 像素數上限，在配置任何列緩衝區之前檢查
+     * @throws IOException 檔案內容損毀或圖片超過上限
+     */
+    public PngStripReader(InputStream input, long maxPixels) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(input));
+
+        byte[] signature = new byte[SIGNATURE.length];
+        in.readFully(signature);
+        if (!Arrays.equals(signature, SIGNATURE)) {
+            throw new UnsupportedFormatException("Not a PNG file");
+        }
+
+        int length = in.readInt();
+        int type = in.readInt();
+        if (type != chunkType("IHDR") || length != 13) {
+            throw new IOException("Missing IHDR chunk");
+        }
+        this.width = in.readInt();
+        this.height = in.readInt();
+        this.bitDepth = in.readUnsignedByte();
+        this.colorType = in.readUnsignedByte();
+        int compression = in.readUnsignedByte();
+        int filter = in.readUnsignedByte();
+        int interlace = in.readUnsignedByte();
+        in.readInt(); // CRC
+
+        if (width <= 0 || height <= 0) {
+            throw new IOException("Invalid image size " + width + "x" + height);
+        }
+        if ((long) width * height > maxPixels) {
+            throw new IOException("Image is too large: " + width + "x" + height
+                + " (limit " + maxPixels + " pixels)");
+        }
+        if (compression != 0 || filter != 0) {
+            throw new IOException("Unsupported PNG compression or filter method");
+        }
+        if (interlace != 0) {
+            throw new UnsupportedFormatException("Interlaced PNG cannot be decoded row by row");
+        }
+
+        switch (colorType) {
+            case TYPE_GRAY:
+            case TYPE_PALETTE:
+                this.channels = 1;
+                break;
+            case TYPE_GRAY_ALPHA:
+                this.channels = 2;
+                break;
+            case TYPE_RGB:
+                this.channels = 3;
+                break;
+            case TYPE_RGBA:
+                this.channels = 4;
+                break;
+            default:
+                throw new IOException("Unknown PNG color type " + colorType);
+        }
+        if (!isValidBitDepth(colorType, bitDepth)) {
+            throw new IOException("Invalid bit depth " + bitDepth + " for PNG color type " + colorType);
+        }
+
+        int bitsPerPixel = channels * bitDepth;
+        long bytesPerRow = ((long) width * bitsPerPixel + 7) / 8;
+        if (bytesPerRow > MAX_ROW_BYTES) {
+            throw new IOException("Image row is too large: " + width + " pixels");
+        }
+        this.filterStride = Math.max(1, bitsPerPixel / 8);
+        this.rowBytes = (int) bytesPerRow;
+
+        readAncillaryChunks();
+    }
+
+    /**
+     * 讀取 IDAT 之前的輔助區塊（PLTE、tRNS），其餘區塊略過
+     */
+    private void readAncillaryChunks() throws IOException {
+        while (true) {
+            int length = in.readInt();
+            int type = in.readInt();
+
+            if (type == chunkType("IDAT")) {
+                if (colorType == TYPE_PALETTE && palette == null) {
+                    throw new IOException("Missing PLTE chunk");
+                }
+                inflater = new Inflater();
+                pixelData = new InflaterInputStream(new IdatStream(length), inflater, 8192);
+                currentRow = new byte[rowBytes];
+                previousRow = new byte[rowBytes];
+                return;
+            }
+            if (type == chunkType("IEND")) {
+                throw new IOException("PNG contains no image data");
+            }
+
+            if (type == chunkType("PLTE")) {
+                int entries = length / 3;
+                palette = new int[256];
+                for (int i = 0; i < entries; i++) {
+                    int r = in.readUnsignedByte();
+                    int g = in.readUnsignedByte();
+                    int b = in.readUnsignedByte();
+                    palette[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+                }
+                in.skipBytes(length - entries * 3);
+            } else if (type == chunkType("tRNS")) {
+                readTransparency(length);
+            } else {
+                skipFully(length);
+            }
+            in.readInt(); // CRC
+        }
+    }
+
+    private void readTransparency(int length) throws IOException {
+        if (colorType == TYPE_PALETTE && palette != null) {
+            for (int i = 0; i < length; i++) {
+                int alpha = in.readUnsignedByte();
+                if (i < palette.length) {
+                    palette[i] = (alpha << 24) | (palette[i] & 0xFFFFFF);
+                }
+            }
+        } else if (colorType == TYPE_GRAY && length == 2) {
+            transparentKey = in.readUnsignedShort();
+        } else if (colorType == TYPE_RGB && length == 6) {
+            transparentRgb = new int[] {in.readUnsignedShort(), in.readUnsignedShort(), in.readUnsignedShort()};
+        } else {
+            skipFully(length);
+        }
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int readRows(int[] argb, int maxRows) throws IOException {
+        int rows = Math.min(maxRows, height - rowsRead);
+        for (int row = 0; row < rows; row++) {
+            readRow();
+            decodeRow(argb, row * width);
+        }
+        rowsRead += rows;
+        return rows;
+    }
+
+    private void readRow() throws IOException {
+        byte[] swap = previousRow;
+        previousRow = currentRow;
+        currentRow = swap;
+
+        int filterType = pixelData.read();
+        if (filterType < 0) {
+            throw new EOFException("Unexpected end of PNG image data");
+        }
+        readFully(pixelData, currentRow);
+        unfilter(filterType, currentRow, previousRow);
+    }
+
+    private void unfilter(int filterType, byte[] row, byte[] prior) throws IOException {
+        int stride = filterStride;
+        switch (filterType) {
+            case 0:
+                break;
+            case 1: // Sub
+                for (int i = stride; i < row.length; i++) {
+                    row[i] += row[i - stride];
+                }
+                break;
+            case 2: // Up
+                for (int i = 0; i < row.length; i++) {
+                    row[i] += prior[i];
+                }
+                break;
+            case 3: // Average
+                for (int i = 0; i < row.length; i++) {
+                    int left = i >= stride ? row[i - stride] & 0xFF : 0;
+                    row[i] += (byte) ((left + (prior[i] & 0xFF)) >>> 1);
+                }
+                break;
+            case 4: // Paeth
+                for (int i = 0; i < row.length; i++) {
+                    int a = i >= stride ? row[i - stride] & 0xFF : 0;
+                    int b = prior[i] & 0xFF;
+                    int c = i >= stride ? prior[i - stride] & 0xFF : 0;
+                    row[i] += (byte) paeth(a, b, c);
+                }
+                break;
+            default:
+                throw new IOException("Unknown PNG filter type " + filterType);
+        }
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) {
+            return a;
+        }
+        return pb <= pc ? b : c;
+    }
+
+    /**
+     * 將目前列的原始資料轉換為 ARGB
+     */
+    private void decodeRow(int[] out, int offset) {
+        byte[] row = currentRow;
+        // 16 位元圖片只取每個分量的高位元組
+        int step = bitDepth / 8;
+        switch (colorType) {
+            case TYPE_RGBA:
+                for (int x = 0; x < width; x++) {
+                    int i = x * 4 * step;
+                    int r = row[i] & 0xFF;
+                    int g = row[i + step] & 0xFF;
+                    int b = row[i + 2 * step] & 0xFF;
+                    int a = row[i + 3 * step] & 0xFF;
+                    out[offset + x] = (a << 24) | (r << 16) | (g << 8) | b;
+                }
+                break;
+            case TYPE_RGB:
+                for (int x = 0; x < width; x++) {
+                    int i = x * 3 * step;
+                    int r = row[i] & 0xFF;
+                    int g = row[i + step] & 0xFF;
+                    int b = row[i + 2 * step] & 0xFF;
+                    int alpha = isTransparentRgb(row, i, step) ? 0 : 0xFF;
+                    out[offset + x] = (alpha << 24) | (r << 16) | (g << 8) | b;
+                }
+                break;
+            case TYPE_GRAY_ALPHA:
+                for (int x = 0; x < width; x++) {
+                    int i = x * 2 * step;
+                    int v = row[i] & 0xFF;
+                    int a = row[i + step] & 0xFF;
+                    out[offset + x] = (a << 24) | (v << 16) | (v << 8) | v;
+                }
+                break;
+            case TYPE_GRAY:
+                for (int x = 0; x < width; x++) {
+                    int raw = sample(row, x);
+                    int v = bitDepth == 16 ? raw >>> 8 : raw * 255 / ((1 << bitDepth) - 1);
+                    int alpha = raw == transparentKey ? 0 : 0xFF;
+                    out[offset + x] = (alpha << 24) | (v << 16) | (v << 8) | v;
+                }
+                break;
+            default: // TYPE_PALETTE
+                for (int x = 0; x < width; x++) {
+                    out[offset + x] = palette[sample(row, x)];
+                }
+                break;
+        }
+    }
+
+    /**
+     * 讀取單通道圖片（灰階或調色盤）第 x 個像素的原始值
+     */
+    private int sample(byte[] row, int x) {
+        switch (bitDepth) {
+            case 16:
+                return ((row[x * 2] & 0xFF) << 8) | (row[x * 2 + 1] & 0xFF);
+            case 8:
+                return row[x] & 0xFF;
+            default:
+                int perByte = 8 / bitDepth;
+                int shift = 8 - bitDepth * (x % perByte + 1);
+                return ((row[x / perByte] & 0xFF) >>> shift) & ((1 << bitDepth) - 1);
+        }
+    }
+
+    private boolean isTransparentRgb(byte[] row, int i, int step) {
+        if (transparentRgb == null) {
+            return false;
+        }
+        for (int c = 0; c < 3; c++) {
+            int offset = i + c * step;
+            int value = step == 2 ? ((row[offset] & 0xFF) << 8) | (row[offset + 1] & 0xFF) : row[offset] & 0xFF;
+            if (value != transparentRgb[c]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            in.close();
+        } finally {
+            if (inflater != null) {
+                inflater.end();
+            }
+        }
+    }
+
+    private void skipFully(int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                throw new EOFException("Unexpected end of PNG file");
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static void readFully(InputStream input, byte[] buffer) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int read = input.read(buffer, offset, buffer.length - offset);
+            if (read < 0) {
+                throw new EOFException("Unexpected end of PNG image data");
+            }
+            offset += read;
+        }
+    }
+
+    /**
+     * PNG 規範允許的色彩類型與位元深度組合
+     */
+    private static boolean isValidBitDepth(int colorType, int bitDepth) {
+        switch (colorType) {
+            case TYPE_GRAY:
+                return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8 || bitDepth == 16;
+            case TYPE_PALETTE:
+                return bitDepth == 1 || bitDepth == 2 || bitDepth == 4 || bitDepth == 8;
+            default:
+                return bitDepth == 8 || bitDepth == 16;
+        }
+    }
+
+    private static int chunkType(String name) {
+        return (name.charAt(0) << 24) | (name.charAt(1) << 16) | (name.charAt(2) << 8) | name.charAt(3);
+    }
+
+    /**
+     * 表示檔案不是 PNG 或無法逐列解碼，呼叫者可改用完整解碼
+     */
+    public static class UnsupportedFormatException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        public UnsupportedFormatException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 將連續的 IDAT 區塊串接為單一資料流
+     */
+    private class IdatStream extends InputStream {
+        private int remaining;
+        private boolean finished;
+
+        IdatStream(int firstLength) {
+            this.remaining = firstLength;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            int n = read(one, 0, 1);
+            return n < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            while (remaining == 0) {
+                if (finished || !nextChunk()) {
+                    return -1;
+                }
+            }
+            int n = in.read(buffer, offset, Math.min(length, remaining));
+            if (n < 0) {
+                throw new EOFException("Unexpected end of PNG file");
+            }
+            remaining -= n;
+            return n;
+        }
+
+        /**
+         * 前進到下一個區塊，若仍為 IDAT 則繼續提供資料
+         */
+        private boolean nextChunk() throws IOException {
+            in.readInt(); // 上一個區塊的 CRC
+            int length = in.readInt();
+            int type = in.readInt();
+            if (type != chunkType("IDAT")) {
+                finished = true;
+                return false;
+            }
+            remaining = length;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package dev.twme.ombre.blockcolors.index;
+
+import java.util.Collection;
+import java.util.List;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.metric.ColorSpace;
+import dev.twme.ombre.blockcolors.metric.StandardMetric;
+
+/**
+ * 一組方塊的完整搜尋索引
+ * Delta E 2000 使用依 L 值排序的 {@link LabIndex}，其他度量使用對應座標空間的 {@link KdTreeIndex}
+ */
+public class BlockSearchIndex {
+    private final LabIndex labIndex;
+    private final KdTreeIndex labTree;
+    private final KdTreeIndex okLabTree;
+
+    public BlockSearchIndex(Collection<BlockColorData> blocks) {
+        this.labIndex = new LabIndex(blocks);
+        this.labTree = new KdTreeIndex(blocks, ColorSpace.LAB);
+        this.okLabTree = new KdTreeIndex(blocks, ColorSpace.OKLAB);
+    }
+
+    /**
+     * 找出與目標顏色最相似的 K 個方塊
+     *
+     * @param targetRgb 目標 RGB 值
+     * @param targetLab 目標 Lab 值（可由呼叫者快取）
+     * @param k 最大結果數
+     * @param metric 色差度量
+     * @return 依相似度由高到低排序的匹配結果
+     */
+    public List<ColorMatch> findTopK(int targetRgb, double[] targetLab, int k, ColorMetric metric) {
+        if (metric == StandardMetric.DELTA_E_2000) {
+            return labIndex.findTopK(targetLab, k);
+        }
+        if (metric.getSpace() == ColorSpace.LAB) {
+            return labTree.findTopK(targetLab, k, metric);
+        }
+        return okLabTree.findTopK(metric.getSpace().fromRgb(targetRgb), k, metric);
+    }
+
+    public int size() {
+        return labIndex.size();
+    }
+}
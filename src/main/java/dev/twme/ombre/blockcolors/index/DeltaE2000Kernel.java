@@ -0,0 +1,135 @@
+package dev.twme.ombre.blockcolors.index;
+
+/**
+ * Delta E 2000 計算核心
+ * 與 {@link dev.twme.ombre.blockcolors.ColorMatcher#calculateDeltaE2000(double[], double[])} 結果相同，
+ * 但以乘法取代 Math.pow、以倍角公式將四次 cos 合併為一組 sin/cos，不配置任何物件，
+ * 色度由呼叫端預先計算，可直接傳入結構陣列 (SoA) 中的方塊資料
+ */
+public final class DeltaE2000Kernel {
+
+    private static final double POW25_7 = 6103515625.0; // 25^7
+    private static final double DEG_TO_RAD = Math.PI / 180.0;
+    private static final double RAD_TO_DEG = 180.0 / Math.PI;
+
+    private static final double COS_30 = Math.cos(30 * DEG_TO_RAD);
+    private static final double SIN_30 = Math.sin(30 * DEG_TO_RAD);
+    private static final double COS_6 = Math.cos(6 * DEG_TO_RAD);
+    private static final double SIN_6 = Math.sin(6 * DEG_TO_RAD);
+    private static final double COS_63 = Math.cos(63 * DEG_TO_RAD);
+    private static final double SIN_63 = Math.sin(63 * DEG_TO_RAD);
+
+    private DeltaE2000Kernel() {
+    }
+
+    /**
+     * 計算兩個顏色的 Delta E 2000（kL = kC = kH = 1）
+     *
+     * @param c1 第一個顏色的色度 sqrt(a1² + b1²)
+     * @param c2 第二個顏色的色度 sqrt(a2² + b2²)
+     */
+    public static double deltaE(double l1, double a1, double b1, double c1,
+                                double l2, double a2, double b2, double c2) {
+        // 計算 G 並調整 a 值
+        double avgC = (c1 + c2) / 2.0;
+        double avgC7 = pow7(avgC);
+        double g = 0.5 * (1 - Math.sqrt(avgC7 / (avgC7 + POW25_7)));
+
+        double a1Prime = (1 + g) * a1;
+        double a2Prime = (1 + g) * a2;
+
+        double c1Prime = Math.sqrt(a1Prime * a1Prime + b1 * b1);
+        double c2Prime = Math.sqrt(a2Prime * a2Prime + b2 * b2);
+
+        double h1Prime = huePrime(a1Prime, b1);
+        double h2Prime = huePrime(a2Prime, b2);
+
+        // 計算差值
+        double deltaLPrime = l2 - l1;
+        double deltaCPrime = c2Prime - c1Prime;
+
+        double product = c1Prime * c2Prime;
+        double deltaHPrimeValue;
+        double avgHPrime;
+        if (product == 0) {
+            deltaHPrimeValue = 0;
+            avgHPrime = h1Prime + h2Prime;
+        } else {
+            double diff = h2Prime - h1Prime;
+            double deltaHPrime;
+            if (Math.abs(diff) <= 180) {
+                deltaHPrime = diff;
+            } else if (diff > 180) {
+                deltaHPrime = diff - 360;
+            } else {
+                deltaHPrime = diff + 360;
+            }
+            deltaHPrimeValue = 2 * Math.sqrt(product) * Math.sin(deltaHPrime * DEG_TO_RAD / 2);
+
+            double sum = h1Prime + h2Prime;
+            if (Math.abs(diff) <= 180) {
+                avgHPrime = sum / 2.0;
+            } else if (sum < 360) {
+                avgHPrime = (sum + 360) / 2.0;
+            } else {
+                avgHPrime = (sum - 360) / 2.0;
+            }
+        }
+
+        double avgLPrime = (l1 + l2) / 2.0;
+        double avgCPrime = (c1Prime + c2Prime) / 2.0;
+
+        // 計算 T：以 cos(h)、sin(h) 推出 2h、3h、4h 的值
+        double hRad = avgHPrime * DEG_TO_RAD;
+        double cos1 = Math.cos(hRad);
+        double sin1 = Math.sin(hRad);
+        double cos2 = cos1 * cos1 - sin1 * sin1;
+        double sin2 = 2 * sin1 * cos1;
+        double cos3 = cos2 * cos1 - sin2 * sin1;
+        double sin3 = sin2 * cos1 + cos2 * sin1;
+        double cos4 = cos2 * cos2 - sin2 * sin2;
+        double sin4 = 2 * sin2 * cos2;
+
+        double t = 1 - 0.17 * (cos1 * COS_30 + sin1 * SIN_30)
+                     + 0.24 * cos2
+                     + 0.32 * (cos3 * COS_6 - sin3 * SIN_6)
+                     - 0.20 * (cos4 * COS_63 + sin4 * SIN_63);
+
+        // 計算 SL, SC, SH
+        double lOffset = avgLPrime - 50;
+        double lOffset2 = lOffset * lOffset;
+        double sl = 1 + (0.015 * lOffset2) / Math.sqrt(20 + lOffset2);
+        double sc = 1 + 0.045 * avgCPrime;
+        double sh = 1 + 0.015 * avgCPrime * t;
+
+        // 計算 RT (旋轉項)
+        double thetaArg = (avgHPrime - 275) / 25;
+        double deltaTheta = 30 * Math.exp(-thetaArg * thetaArg);
+        double avgCPrime7 = pow7(avgCPrime);
+        double rc = 2 * Math.sqrt(avgCPrime7 / (avgCPrime7 + POW25_7));
+        double rt = -rc * Math.sin(2 * deltaTheta * DEG_TO_RAD);
+
+        double termL = deltaLPrime / sl;
+        double termC = deltaCPrime / sc;
+        double termH = deltaHPrimeValue / sh;
+
+        return Math.sqrt(termL * termL + termC * termC + termH * termH + rt * termC * termH);
+    }
+
+    private static double huePrime(double aPrime, double b) {
+        if (aPrime == 0 && b == 0) {
+            return 0;
+        }
+        double hPrime = Math.atan2(b, aPrime) * RAD_TO_DEG;
+        if (hPrime < 0) {
+            hPrime += 360;
+        }
+        return hPrime;
+    }
+
+    private static double pow7(double x) {
+        double x2 = x * x;
+        double x3 = x2 * x;
+        return x3 * x3 * x;
+    }
+}
@@ -0,0 +1,184 @@
+package dev.twme.ombre.blockcolors.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+import dev.twme.ombre.blockcolors.metric.ColorMetric;
+import dev.twme.ombre.blockcolors.metric.ColorSpace;
+
+/**
+ * 方塊顏色的 k-d 樹索引
+ * 適用於能以歐氏距離推出下界的低成本度量（Delta E 76、Delta E 94、OKLab），
+ * 查詢時只展開可能包含前 K 名的子樹
+ */
+public class KdTreeIndex {
+
+    // 浮點誤差容許值，避免下界因捨入略大於實際值而誤刪
+    private static final double EPSILON = 1e-9;
+
+    private final ColorSpace space;
+    private final BlockColorData[] blocks;
+
+    // 依樹狀順序排列的座標：區間 [lo, hi) 的節點位於 (lo + hi) / 2
+    private final float[][] coords;
+    private final byte[] splitAxis;
+
+    /**
+     * @param source 要索引的方塊（未映射 Material 的方塊會被略過）
+     * @param space 建立索引所使用的座標空間
+     */
+    public KdTreeIndex(Collection<BlockColorData> source, ColorSpace space) {
+        this.space = space;
+
+        List<BlockColorData> valid = new ArrayList<>(source.size());
+        List<double[]> points = new ArrayList<>(source.size());
+        for (BlockColorData data : source) {
+            if (data.getMaterial() != null && data.getLab() != null) {
+                valid.add(data);
+                points.add(space.fromBlock(data));
+            }
+        }
+
+        int n = valid.size();
+        this.blocks = new BlockColorData[n];
+        this.coords = new float[3][n];
+        this.splitAxis = new byte[n];
+
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        build(order, 0, n, valid, points);
+    }
+
+    /**
+     * 遞迴建立子樹：以座標分佈最廣的軸的中位數切分
+     */
+    private void build(int[] order, int lo, int hi, List<BlockColorData> valid, List<double[]> points) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int axis = widestAxis(order, lo, hi, points);
+        int mid = (lo + hi) >>> 1;
+        select(order, lo, hi - 1, mid, axis, points);
+
+        double[] point = points.get(order[mid]);
+        blocks[mid] = valid.get(order[mid]);
+        coords[0][mid] = (float) point[0];
+        coords[1][mid] = (float) point[1];
+        coords[2][mid] = (float) point[2];
+        splitAxis[mid] = (byte) axis;
+
+        build(order, lo, mid, valid, points);
+        build(order, mid + 1, hi, valid, points);
+    }
+
+    private static int widestAxis(int[] order, int lo, int hi, List<double[]> points) {
+        int best = 0;
+        double bestSpread = -1;
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = lo; i < hi; i++) {
+                double v = points.get(order[i])[axis];
+                min = Math.min(min, v);
+                max = Math.max(max, v);
+            }
+            if (max - min > bestSpread) {
+                bestSpread = max - min;
+                best = axis;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * 快速選擇：讓 order[k] 成為 [lo, hi] 中第 k 小的點，左側皆不大於、右側皆不小於它
+     */
+    private static void select(int[] order, int lo, int hi, int k, int axis, List<double[]> points) {
+        while (lo < hi) {
+            double pivot = points.get(order[(lo + hi) >>> 1])[axis];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (points.get(order[i])[axis] < pivot) i++;
+                while (points.get(order[j])[axis] > pivot) j--;
+                if (i <= j) {
+                    int tmp = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 找出與目標顏色最相似的 K 個方塊
+     *
+     * @param target 目標顏色在 {@link #getSpace()} 空間的座標
+     * @param k 最大結果數
+     * @param metric 色差度量，必須使用與索引相同的座標空間
+     * @return 依相似度由高到低排序的匹配結果
+     */
+    public List<ColorMatch> findTopK(double[] target, int k, ColorMetric metric) {
+        if (metric.getSpace() != space) {
+            throw new IllegalArgumentException("Metric " + metric.getId() + " does not use " + space);
+        }
+        if (k <= 0 || blocks.length == 0) {
+            return new ArrayList<>();
+        }
+
+        TopKHeap heap = new TopKHeap(Math.min(k, blocks.length));
+        search(0, blocks.length, target, metric, metric.lowerBoundScale(target), heap);
+        return heap.toMatches(blocks);
+    }
+
+    private void search(int lo, int hi, double[] target, ColorMetric metric, double scale, TopKHeap heap) {
+        if (lo >= hi) {
+            return;
+        }
+
+        int mid = (lo + hi) >>> 1;
+        heap.offer(mid, metric.distance(target, coords[0][mid], coords[1][mid], coords[2][mid]));
+
+        int axis = splitAxis[mid];
+        double diff = target[axis] - coords[axis][mid];
+
+        // 先搜尋目標所在的一側
+        if (diff < 0) {
+            search(lo, mid, target, metric, scale, heap);
+        } else {
+            search(mid + 1, hi, target, metric, scale, heap);
+        }
+
+        // 另一側與目標的距離至少為 |diff|，換算成度量下界後仍可能更好才搜尋
+        if (!heap.isFull() || Math.abs(diff) * scale <= heap.worst() + EPSILON) {
+            if (diff < 0) {
+                search(mid + 1, hi, target, metric, scale, heap);
+            } else {
+                search(lo, mid, target, metric, scale, heap);
+            }
+        }
+    }
+
+    public ColorSpace getSpace() {
+        return space;
+    }
+
+    public int size() {
+        return blocks.length;
+    }
+}
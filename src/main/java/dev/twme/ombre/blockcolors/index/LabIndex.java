@@ -0,0 +1,150 @@
+package dev.twme.ombre.blockcolors.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+
+/**
+ * 方塊 Lab 值的搜尋索引
+ * 方塊依 L 值排序，Lab 值與色度以結構陣列 (SoA) 的 float 連續存放；
+ * 查詢時從目標 L 值向兩側展開，先以便宜的下界剔除不可能進入前 K 名的方塊，再對剩餘方塊計算 Delta E 2000
+ */
+public class LabIndex {
+
+    // SL 在 L̄ = 0 或 100 時的最大值：1 + 0.015 * 2500 / sqrt(2520)
+    private static final double SL_MAX = 1 + 0.015 * 2500 / Math.sqrt(2520);
+
+    // |RT| <= 2 * sin(60°)，交叉項最多抵銷 (ΔC'/SC)² + (ΔH'/SH)² 的 |RT| / 2
+    private static final double CROSS_TERM_FACTOR = 1 - Math.sin(Math.toRadians(60));
+
+    // 浮點誤差容許值，避免下界因捨入略大於實際值而誤刪
+    private static final double EPSILON = 1e-9;
+
+    private final BlockColorData[] blocks;
+    private final float[] l;
+    private final float[] a;
+    private final float[] b;
+    private final float[] chroma;
+
+    /**
+     * @param source 要索引的方塊（未映射 Material 的方塊會被略過）
+     */
+    public LabIndex(Collection<BlockColorData> source) {
+        List<BlockColorData> valid = new ArrayList<>(source.size());
+        for (BlockColorData data : source) {
+            if (data.getMaterial() != null && data.getLab() != null) {
+                valid.add(data);
+            }
+        }
+        valid.sort((x, y) -> Double.compare(x.getLab()[0], y.getLab()[0]));
+
+        int n = valid.size();
+        this.blocks = valid.toArray(new BlockColorData[0]);
+        this.l = new float[n];
+        this.a = new float[n];
+        this.b = new float[n];
+        this.chroma = new float[n];
+        for (int i = 0; i < n; i++) {
+            double[] lab = blocks[i].getLab();
+            l[i] = (float) lab[0];
+            a[i] = (float) lab[1];
+            b[i] = (float) lab[2];
+            chroma[i] = (float) Math.sqrt(a[i] * a[i] + b[i] * b[i]);
+        }
+    }
+
+    /**
+     * 找出與目標顏色最相似的 K 個方塊
+     *
+     * @param targetLab 目標 Lab 值
+     * @param k 最大結果數
+     * @return 依相似度由高到低排序的匹配結果
+     */
+    public List<ColorMatch> findTopK(double[] targetLab, int k) {
+        int n = blocks.length;
+        if (k <= 0 || n == 0) {
+            return new ArrayList<>();
+        }
+
+        double tL = targetLab[0];
+        double tA = targetLab[1];
+        double tB = targetLab[2];
+        double tC = Math.sqrt(tA * tA + tB * tB);
+
+        TopKHeap heap = new TopKHeap(Math.min(k, n));
+
+        // 從最接近目標 L 值的位置向兩側展開
+        int hi = lowerBound(tL);
+        int lo = hi - 1;
+
+        while (lo >= 0 || hi < n) {
+            int i;
+            if (hi >= n || (lo >= 0 && tL - l[lo] <= l[hi] - tL)) {
+                i = lo--;
+            } else {
+                i = hi++;
+            }
+
+            double deltaL = Math.abs(l[i] - tL);
+            if (heap.isFull()) {
+                // 之後的方塊 |ΔL| 只會更大，ΔE ≥ |ΔL| / SL_MAX 已不可能進入前 K 名
+                if (deltaL / SL_MAX > heap.worst() + EPSILON) {
+                    break;
+                }
+                if (lowerBound(tL, tA, tB, tC, i) > heap.worst() + EPSILON) {
+                    continue;
+                }
+            }
+
+            double deltaE = DeltaE2000Kernel.deltaE(tL, tA, tB, tC, l[i], a[i], b[i], chroma[i]);
+            heap.offer(i, deltaE);
+        }
+
+        return heap.toMatches(blocks);
+    }
+
+    /**
+     * 計算單一方塊的 Delta E 2000 下界
+     * ΔE00² ≥ (ΔL/SL)² + (1 - |RT|/2) · (Δa² + Δb²) / SC²，其中 SC 以上界代入
+     */
+    private double lowerBound(double tL, double tA, double tB, double tC, int i) {
+        double avgL = (tL + l[i]) / 2 - 50;
+        double sl = 1 + (0.015 * avgL * avgL) / Math.sqrt(20 + avgL * avgL);
+        double termL = (l[i] - tL) / sl;
+
+        // C' ≤ 1.5 · C，因此 SC = 1 + 0.045 · avgC' ≤ 1 + 0.03375 · (C1 + C2)
+        double scMax = 1 + 0.03375 * (tC + chroma[i]);
+        double da = a[i] - tA;
+        double db = b[i] - tB;
+
+        return Math.sqrt(termL * termL + CROSS_TERM_FACTOR * (da * da + db * db) / (scMax * scMax));
+    }
+
+    /**
+     * 找出第一個 L 值不小於指定值的位置
+     */
+    private int lowerBound(double value) {
+        int low = 0;
+        int high = l.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (l[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int size() {
+        return blocks.length;
+    }
+
+    public BlockColorData getBlock(int i) {
+        return blocks[i];
+    }
+}
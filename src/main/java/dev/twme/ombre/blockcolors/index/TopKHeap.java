@@ -0,0 +1,83 @@
+package dev.twme.ombre.blockcolors.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.data.ColorMatch;
+
+/**
+ * 固定容量的最大堆積，保留 ΔE 最小的 K 個方塊
+ */
+final class TopKHeap {
+    private final int[] indices;
+    private final double[] values;
+    private int size;
+
+    TopKHeap(int capacity) {
+        this.indices = new int[capacity];
+        this.values = new double[capacity];
+    }
+
+    boolean isFull() {
+        return size == values.length;
+    }
+
+    double worst() {
+        return values[0];
+    }
+
+    void offer(int index, double value) {
+        if (!isFull()) {
+            int pos = size++;
+            // 上浮
+            while (pos > 0) {
+                int parent = (pos - 1) >>> 1;
+                if (values[parent] >= value) {
+                    break;
+                }
+                indices[pos] = indices[parent];
+                values[pos] = values[parent];
+                pos = parent;
+            }
+            indices[pos] = index;
+            values[pos] = value;
+        } else if (value < values[0]) {
+            // 取代堆頂後下沉
+            int pos = 0;
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && values[child + 1] > values[child]) {
+                    child++;
+                }
+                if (values[child] <= value) {
+                    break;
+                }
+                indices[pos] = indices[child];
+                values[pos] = values[child];
+                pos = child;
+            }
+            indices[pos] = index;
+            values[pos] = value;
+        }
+    }
+
+    List<ColorMatch> toMatches(BlockColorData[] blocks) {
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (x, y) -> Double.compare(values[x], values[y]));
+
+        List<ColorMatch> matches = new ArrayList<>(size);
+        for (int slot : order) {
+            double deltaE = values[slot];
+            matches.add(new ColorMatch(blocks[indices[slot]], Math.max(0, 100 - deltaE), deltaE));
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.twme.ombre.blockcolors.metric;
+
+/**
+ * 色差度量
+ * 距離越小代表越相似，數值尺度與 Delta E 相近（0-100）
+ */
+public interface ColorMetric {
+
+    /**
+     * 取得度量的識別名稱（對應 config.yml 中的設定值）
+     */
+    String getId();
+
+    /**
+     * 取得計算距離時使用的座標空間
+     */
+    ColorSpace getSpace();
+
+    /**
+     * 計算目標顏色到樣本顏色的距離
+     * 座標皆位於 {@link #getSpace()} 空間
+     *
+     * @param target 目標顏色座標
+     * @param l 樣本 L
+     * @param a 樣本 a
+     * @param b 樣本 b
+     * @return 色差
+     */
+    double distance(double[] target, double l, double a, double b);
+
+    /**
+     * 取得歐氏距離轉下界的比例
+     * 對任何樣本都滿足 distance(target, sample) ≥ scale × 歐氏距離(target, sample)，
+     * 供空間索引剪枝使用；回傳 0 表示無法剪枝
+     *
+     * @param target 目標顏色座標
+     */
+    double lowerBoundScale(double[] target);
+
+    /**
+     * 是否為低成本度量（可直接以空間索引搜尋，適合用於快速預覽）
+     */
+    boolean isCheap();
+}
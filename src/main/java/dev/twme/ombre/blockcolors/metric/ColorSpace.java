@@ -0,0 +1,54 @@
+package dev.twme.ombre.blockcolors.metric;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockcolors.util.LabConverter;
+import dev.twme.ombre.blockcolors.util.OkLabConverter;
+
+/**
+ * 色差計算所使用的座標空間
+ */
+public enum ColorSpace {
+    /**
+     * CIE Lab（方塊使用 API 提供的 Lab 值）
+     */
+    LAB {
+        @Override
+        public double[] fromRgb(int rgb) {
+            return LabConverter.rgbToLab(rgb);
+        }
+
+        @Override
+        public double[] fromBlock(BlockColorData block) {
+            return block.getLab();
+        }
+    },
+
+    /**
+     * OKLab，各分量放大 100 倍，使距離與 Delta E 的尺度相近
+     */
+    OKLAB {
+        @Override
+        public double[] fromRgb(int rgb) {
+            double[] lab = OkLabConverter.rgbToOkLab(rgb);
+            lab[0] *= 100;
+            lab[1] *= 100;
+            lab[2] *= 100;
+            return lab;
+        }
+
+        @Override
+        public double[] fromBlock(BlockColorData block) {
+            return fromRgb(block.getRgb());
+        }
+    };
+
+    /**
+     * 將 RGB 顏色轉換為此空間的座標
+     */
+    public abstract double[] fromRgb(int rgb);
+
+    /**
+     * 取得方塊在此空間的座標
+     */
+    public abstract double[] fromBlock(BlockColorData block);
+}
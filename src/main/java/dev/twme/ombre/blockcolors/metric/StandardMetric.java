@@ -0,0 +1,136 @@
+package dev.twme.ombre.blockcolors.metric;
+
+import dev.twme.ombre.blockcolors.index.DeltaE2000Kernel;
+
+/**
+ * 內建的色差度量
+ */
+public enum StandardMetric implements ColorMetric {
+    /**
+     * CIE76：Lab 空間的歐氏距離
+     */
+    DELTA_E_76("delta-e-76", ColorSpace.LAB, true) {
+        @Override
+        public double distance(double[] target, double l, double a, double b) {
+            return euclidean(target, l, a, b);
+        }
+
+        @Override
+        public double lowerBoundScale(double[] target) {
+            return 1.0;
+        }
+    },
+
+    /**
+     * CIE94（圖形藝術權重，以目標顏色為參考色）
+     */
+    DELTA_E_94("delta-e-94", ColorSpace.LAB, true) {
+        @Override
+        public double distance(double[] target, double l, double a, double b) {
+            double c1 = Math.sqrt(target[1] * target[1] + target[2] * target[2]);
+            double c2 = Math.sqrt(a * a + b * b);
+
+            double deltaL = target[0] - l;
+            double deltaC = c1 - c2;
+            double deltaA = target[1] - a;
+            double deltaB = target[2] - b;
+            double deltaH2 = Math.max(0, deltaA * deltaA + deltaB * deltaB - deltaC * deltaC);
+
+            double sc = 1 + 0.045 * c1;
+            double sh = 1 + 0.015 * c1;
+
+            double termC = deltaC / sc;
+            return Math.sqrt(deltaL * deltaL + termC * termC + deltaH2 / (sh * sh));
+        }
+
+        @Override
+        public double lowerBoundScale(double[] target) {
+            // SL = 1 且 SH ≤ SC，因此 ΔE94 ≥ ΔE76 / SC
+            double c1 = Math.sqrt(target[1] * target[1] + target[2] * target[2]);
+            return 1.0 / (1 + 0.045 * c1);
+        }
+    },
+
+    /**
+     * CIEDE2000：最精確但成本最高
+     */
+    DELTA_E_2000("delta-e-2000", ColorSpace.LAB, false) {
+        @Override
+        public double distance(double[] target, double l, double a, double b) {
+            return DeltaE2000Kernel.deltaE(
+                target[0], target[1], target[2], Math.sqrt(target[1] * target[1] + target[2] * target[2]),
+                l, a, b, Math.sqrt(a * a + b * b)
+            );
+        }
+
+        @Override
+        public double lowerBoundScale(double[] target) {
+            return 0;
+        }
+    },
+
+    /**
+     * OKLab 空間的歐氏距離（放大 100 倍）
+     */
+    OKLAB("oklab", ColorSpace.OKLAB, true) {
+        @Override
+        public double distance(double[] target, double l, double a, double b) {
+            return euclidean(target, l, a, b);
+        }
+
+        @Override
+        public double lowerBoundScale(double[] target) {
+            return 1.0;
+        }
+    };
+
+    private final String id;
+    private final ColorSpace space;
+    private final boolean cheap;
+
+    StandardMetric(String id, ColorSpace space, boolean cheap) {
+        this.id = id;
+        this.space = space;
+        this.cheap = cheap;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public ColorSpace getSpace() {
+        return space;
+    }
+
+    @Override
+    public boolean isCheap() {
+        return cheap;
+    }
+
+    /**
+     * 依識別名稱取得度量
+     *
+     * @param id 識別名稱（例如 "delta-e-2000"）
+     * @return 對應的度量，找不到時返回 null
+     */
+    public static StandardMetric fromId(String id) {
+        if (id == null) {
+            return null;
+        }
+        for (StandardMetric metric : values()) {
+            if (metric.id.equalsIgnoreCase(id)) {
+                return metric;
+            }
+        }
+        return null;
+    }
+
+    private static double euclidean(double[] target, double l, double a, double b) {
+        double dl = target[0] - l;
+        double da = target[1] - a;
+        double db = target[2] - b;
+        return Math.sqrt(dl * dl + da * da + db * db);
+    }
+}
@@ -155,6 +155,75 @@ public class ColorConverter {
         }
     }
 
+    /**
+     * Lab 轉 RGB（超出 sRGB 色域的顏色會被截斷）
+     * 
+     * @param l L 值
+     * @param a a 值
+     * @param b b 值
+     * @return RGB 整數值
+     */
+    public static int labToRgb(double l, double a, double b) {
+        // 步驟 1: Lab -> XYZ（D65 參考白點，與 xyzToLab 相同）
+        double fy = (l + 16) / 116;
+        double fx = fy + a / 500;
+        double fz = fy - b / 200;
+
+        double x = inverseLabFunction(fx) * 0.95047;
+        double y = inverseLabFunction(fy);
+        double z = inverseLabFunction(fz) * 1.08883;
+
+        // 步驟 2: XYZ -> 線性 RGB
+        double r = x * 3.2404542 + y * -1.5371385 + z * -0.4985314;
+        double g = x * -0.9692660 + y * 1.8760108 + z * 0.0415560;
+        double bl = x * 0.0556434 + y * -0.2040259 + z * 1.0572252;
+
+        // 步驟 3: Gamma 校正 (sRGB)
+        return createRgb(toSrgb(r), toSrgb(g), toSrgb(bl));
+    }
+
+    /**
+     * Lab 轉 LCh（極座標形式）
+     * 
+     * @param lab Lab 值 [L, a, b]
+     * @return LCh 值 [L, C, h]，h 為 0-360 度
+     */
+    public static double[] labToLch(double[] lab) {
+        double c = Math.sqrt(lab[1] * lab[1] + lab[2] * lab[2]);
+        double h = Math.toDegrees(Math.atan2(lab[2], lab[1]));
+        if (h < 0) {
+            h += 360;
+        }
+        return new double[]{lab[0], c, h};
+    }
+
+    /**
+     * LCh 轉 Lab
+     * 
+     * @param l 明度
+     * @param c 色度
+     * @param h 色相（度）
+     * @return Lab 值 [L, a, b]
+     */
+    public static double[] lchToLab(double l, double c, double h) {
+        double rad = Math.toRadians(h);
+        return new double[]{l, c * Math.cos(rad), c * Math.sin(rad)};
+    }
+
+    private static double inverseLabFunction(double t) {
+        final double DELTA = 6.0 / 29.0;
+        if (t > DELTA) {
+            return t * t * t;
+        } else {
+            return 3 * DELTA * DELTA * (t - 4.0 / 29.0);
+        }
+    }
+
+    private static int toSrgb(double linear) {
+        double c = (linear > 0.0031308) ? 1.055 * Math.pow(linear, 1 / 2.4) - 0.055 : 12.92 * linear;
+        return (int) Math.round(Math.max(0, Math.min(1, c)) * 255);
+    }
+
     /**
      * 限制 RGB 值在有效範圍內 (0-255)
      */
@@ -0,0 +1,110 @@
+package dev.twme.ombre.blockcolors.util;
+
+/**
+ * 查表式 Lab 轉換器
+ * 以預先計算的表格取代 {@link ColorConverter#rgbToLab(int)} 中的 Math.pow 與 Math.cbrt，
+ * 結果與 ColorConverter 的參考實作誤差在 {@link #TOLERANCE} 以內
+ */
+public final class LabConverter {
+
+    /**
+     * 與參考實作相比，L、a、b 各分量的最大絕對誤差
+     */
+    public static final double TOLERANCE = 1e-3;
+
+    // D65 標準光源的參考白點（與 ColorConverter 相同）
+    private static final double REF_X = 95.047;
+    private static final double REF_Y = 100.000;
+    private static final double REF_Z = 108.883;
+
+    // Lab 轉換函數的分段門檻
+    private static final double DELTA = 6.0 / 29.0;
+    private static final double DELTA_CUBE = DELTA * DELTA * DELTA;
+
+    // 立方根表的取樣數與涵蓋範圍（正規化後的 XYZ 最大略高於 1）
+    private static final int CBRT_STEPS = 8192;
+    private static final double CBRT_MAX = 1.01;
+    private static final double CBRT_SCALE = CBRT_STEPS / CBRT_MAX;
+
+    // sRGB 8 位元值 -> 線性值 (0-1)
+    private static final double[] LINEAR = new double[256];
+
+    // labFunction 在 [0, CBRT_MAX] 上的等距取樣，多一格供插值使用
+    private static final double[] LAB_F = new double[CBRT_STEPS + 2];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = (c > 0.04045) ? Math.pow((c + 0.055) / 1.055, 2.4) : c / 12.92;
+        }
+        for (int i = 0; i < LAB_F.length; i++) {
+            LAB_F[i] = labFunction(i / CBRT_SCALE);
+        }
+    }
+
+    private LabConverter() {
+    }
+
+    /**
+     * RGB 轉 Lab 色彩空間
+     *
+     * @param rgb RGB 整數值
+     * @return Lab 值 [L, a, b]
+     */
+    public static double[] rgbToLab(int rgb) {
+        double[] lab = new double[3];
+        convert(rgb, lab);
+        return lab;
+    }
+
+    /**
+     * 轉換單一顏色並寫入 out[0..2]
+     */
+    private static void convert(int rgb, double[] out) {
+        double r = LINEAR[(rgb >> 16) & 0xFF];
+        double g = LINEAR[(rgb >> 8) & 0xFF];
+        double b = LINEAR[rgb & 0xFF];
+
+        // 轉換為 XYZ 並除以參考白點（ColorConverter 中的 *100 與 /REF 合併）
+        double x = (r * 0.4124564 + g * 0.3575761 + b * 0.1804375) * (100 / REF_X);
+        double y = (r * 0.2126729 + g * 0.7151522 + b * 0.0721750) * (100 / REF_Y);
+        double z = (r * 0.0193339 + g * 0.1191920 + b * 0.9503041) * (100 / REF_Z);
+
+        double fx = lookup(x);
+        double fy = lookup(y);
+        double fz = lookup(z);
+
+        out[0] = (116 * fy) - 16;
+        out[1] = 500 * (fx - fy);
+        out[2] = 200 * (fy - fz);
+    }
+
+    /**
+     * 以線性插值查表計算 labFunction
+     */
+    private static double lookup(double t) {
+        if (t <= DELTA_CUBE) {
+            // 線性區段直接計算，無需查表
+            return t / (3 * DELTA * DELTA) + (4.0 / 29.0);
+        }
+        if (t >= CBRT_MAX) {
+            return Math.cbrt(t);
+        }
+
+        double pos = t * CBRT_SCALE;
+        int index = (int) pos;
+        double frac = pos - index;
+        return LAB_F[index] + (LAB_F[index + 1] - LAB_F[index]) * frac;
+    }
+
+    /**
+     * Lab 轉換的輔助函數（參考實作，僅用於建表）
+     */
+    private static double labFunction(double t) {
+        if (t > DELTA_CUBE) {
+            return Math.cbrt(t);
+        } else {
+            return t / (3 * DELTA * DELTA) + (4.0 / 29.0);
+        }
+    }
+}
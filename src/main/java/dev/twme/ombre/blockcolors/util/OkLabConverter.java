@@ -0,0 +1,45 @@
+package dev.twme.ombre.blockcolors.util;
+
+/**
+ * OKLab 色彩空間轉換
+ * OKLab 的歐氏距離比 CIE Lab 更接近人眼感知，且計算成本與 Delta E 76 相同
+ */
+public final class OkLabConverter {
+
+    // sRGB 8 位元值 -> 線性值 (0-1)
+    private static final double[] LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = (c > 0.04045) ? Math.pow((c + 0.055) / 1.055, 2.4) : c / 12.92;
+        }
+    }
+
+    private OkLabConverter() {
+    }
+
+    /**
+     * RGB 轉 OKLab
+     *
+     * @param rgb RGB 整數值
+     * @return OKLab 值 [L, a, b]，L 的範圍為 0-1
+     */
+    public static double[] rgbToOkLab(int rgb) {
+        double r = LINEAR[(rgb >> 16) & 0xFF];
+        double g = LINEAR[(rgb >> 8) & 0xFF];
+        double b = LINEAR[rgb & 0xFF];
+
+        // 線性 sRGB -> LMS
+        double l = Math.cbrt(0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b);
+        double m = Math.cbrt(0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b);
+        double s = Math.cbrt(0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b);
+
+        // LMS -> OKLab
+        return new double[]{
+            0.2104542553 * l + 0.7936177850 * m - 0.0040720468 * s,
+            1.9779984951 * l - 2.4285922050 * m + 0.4505937099 * s,
+            0.0259040371 * l + 0.7827717662 * m - 0.8086757660 * s
+        };
+    }
+}
@@ -19,6 +19,19 @@ public class PaletteFilter {
         this.limit = 20;
     }
     
+    /**
+     * 複製篩選條件
+     */
+    public PaletteFilter copy() {
+        PaletteFilter copy = new PaletteFilter();
+        copy.sortBy = sortBy;
+        copy.color = color;
+        copy.blockSearch = blockSearch;
+        copy.page = page;
+        copy.limit = limit;
+        return copy;
+    }
+    
     /**
      * 轉換為 API 查詢字串
      */
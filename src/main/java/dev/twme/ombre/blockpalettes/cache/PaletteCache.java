@@ -1,107 +1,490 @@
 package dev.twme.ombre.blockpalettes.cache;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.bukkit.scheduler.BukkitTask;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 
 import dev.twme.ombre.Ombre;
 import dev.twme.ombre.blockpalettes.api.APIResponse;
 import dev.twme.ombre.blockpalettes.api.BlockPalettesAPI;
 import dev.twme.ombre.blockpalettes.api.PaletteData;
 import dev.twme.ombre.blockpalettes.api.PaletteFilter;
+import dev.twme.ombre.blockpalettes.index.PaletteIndex;
+import dev.twme.ombre.refresh.RefreshScheduler;
+import dev.twme.ombre.refresh.RefreshStats;
 
 /**
  * 調色板快取系統
- * 快取 API 請求結果以減少網路請求
+ * 快取 API 請求結果以減少網路請求。
+ * 過期的項目仍會立即返回，並交給 {@link RefreshScheduler} 在背景重新取得；
+ * 只有完全沒有快取時玩家才需要等待網路。
+ * 同一個鍵同時只會有一個進行中的 API 請求，並行的請求會共用其結果 (single-flight)。
+ * 兩個快取都以估計的記憶體用量為上限 (LRU 淘汰)，一段時間沒被讀取的項目會過期，
+ * 並由定期清理工作移除。
+ * 列表以較大的頁面向 API 請求，GUI 的小頁面從中切出，翻頁時通常不需要再連線。
+ * 列表同時寫入磁碟快取 ({@link PaletteDiskCache})，重新啟動後或 API 無法連線時仍可使用；
+ * 離線模式下只使用磁碟快取，不連線到 API。
+ * 取得的調色板都會加入本地索引 ({@link PaletteIndex})，供不需要連線的搜尋使用
  */
 public class PaletteCache {
     
+    /**
+     * 背景更新排程中的資料集名稱
+     */
+    public static final String LIST_DATASET = "palette-lists";
+    public static final String DETAIL_DATASET = "palette-details";
+    
     private final Ombre plugin;
     private final BlockPalettesAPI api;
+    private final RefreshScheduler refreshScheduler;
+    
+    // 定期清理的間隔 (tick)
+    private static final long SWEEP_INTERVAL_TICKS = 20L * 60;
     
     // 列表快取 (過濾條件 -> 回應)
-    private final Map<String, CachedResponse> listCache;
+    private final Cache<String, CachedResponse> listCache;
     
     // 詳細資料快取 (ID -> 調色板資料)
-    private final Map<Integer, CachedPalette> detailCache;
+    private final Cache<Integer, CachedPalette> detailCache;
+    
+    // 進行中的 API 請求，相同鍵的請求共用同一個 future
+    private final Map<String, CompletableFuture<APIResponse>> inFlightLists = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<PaletteData>> inFlightDetails = new ConcurrentHashMap<>();
+    
+    // 請求統計
+    private final AtomicLong listHits = new AtomicLong();
+    private final AtomicLong listMisses = new AtomicLong();
+    private final AtomicLong listCoalesced = new AtomicLong();
+    private final AtomicLong listPrefetched = new AtomicLong();
+    private final AtomicLong listDiskHits = new AtomicLong();
+    private final AtomicLong detailHits = new AtomicLong();
+    private final AtomicLong detailMisses = new AtomicLong();
+    private final AtomicLong detailCoalesced = new AtomicLong();
     
     private final long listCacheDuration;  // 列表快取時間 (毫秒)
     private final long detailCacheDuration; // 詳細資料快取時間 (毫秒)
+    private final long maxStaleDuration;    // 過期後仍可提供的時間 (毫秒)
+    private final long maxWeight;           // 快取的記憶體上限 (估計位元組)
+    private final int upstreamPageSize;     // 向 API 請求的每頁數量
+    
+    private final BukkitTask sweepTask;
+    private final PalettePrefetcher prefetcher;
+    private final PaletteDiskCache diskCache;
+    private final Executor ioExecutor;      // 讀取磁碟快取用的執行緒池
+    private final boolean offline;          // 只使用磁碟快取
+    private final PaletteIndex index;
     
     public PaletteCache(Ombre plugin, BlockPalettesAPI api) {
         this.plugin = plugin;
         this.api = api;
-        this.listCache = new ConcurrentHashMap<>();
-        this.detailCache = new ConcurrentHashMap<>();
+        this.refreshScheduler = plugin.getRefreshScheduler();
         
         // 從設定讀取快取時間 (秒轉毫秒)
         int listSeconds = plugin.getConfig().getInt("block-palettes.cache-duration", 300);
         this.listCacheDuration = TimeUnit.SECONDS.toMillis(listSeconds);
         this.detailCacheDuration = TimeUnit.MINUTES.toMillis(30); // 詳細資料快取 30 分鐘
+        this.maxStaleDuration = TimeUnit.SECONDS.toMillis(
+            plugin.getConfig().getLong("block-palettes.max-stale-seconds", 86400));
+        long idleSeconds = Math.max(60, plugin.getConfig().getLong("block-palettes.cache-idle-seconds", 3600));
+        this.maxWeight = Math.max(64, plugin.getConfig().getLong("block-palettes.cache-max-size-kb", 4096)) * 1024;
+        this.upstreamPageSize = Math.max(1, Math.min(100,
+            plugin.getConfig().getInt("block-palettes.upstream-page-size", 60)));
+        
+        // 列表佔大部分空間，詳細資料使用四分之一
+        this.listCache = CacheBuilder.newBuilder()
+            .maximumWeight(maxWeight - maxWeight / 4)
+            .weigher((String key, CachedResponse value) -> value.weight)
+            .expireAfterWrite(listCacheDuration + maxStaleDuration, TimeUnit.MILLISECONDS)
+            .expireAfterAccess(idleSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        this.detailCache = CacheBuilder.newBuilder()
+            .maximumWeight(maxWeight / 4)
+            .weigher((Integer key, CachedPalette value) -> value.weight)
+            .expireAfterWrite(detailCacheDuration + maxStaleDuration, TimeUnit.MILLISECONDS)
+            .expireAfterAccess(idleSeconds, TimeUnit.SECONDS)
+            .recordStats()
+            .build();
+        
+        this.prefetcher = new PalettePrefetcher(plugin, this);
+        this.index = new PaletteIndex(plugin);
+        this.diskCache = new PaletteDiskCache(plugin);
+        this.ioExecutor = plugin.getHttpTransport().getExecutor();
+        this.offline = diskCache.isEnabled() && plugin.getConfig().getBoolean("block-palettes.disk-cache.offline", false);
+        if (offline) {
+            plugin.getLogger().info("Block Palettes offline mode: palettes are served from the disk cache only");
+        }
+        
+        // 在背景以磁碟快取中的調色板建立本地索引
+        if (diskCache.isEnabled() && plugin.getConfig().getBoolean("block-palettes.index.load-disk-cache", true)) {
+            CompletableFuture.runAsync(() -> {
+                diskCache.forEach(response -> index.addAll(response.getPalettes()));
+                plugin.getLogger().fine("本地調色板索引: " + index.size() + " 個調色板");
+            }, ioExecutor);
+        }
+        
+        // Guava 只在讀寫時順便清理，沒有請求時由定期工作移除過期項目
+        this.sweepTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(
+            plugin, this::cleanupExpired, SWEEP_INTERVAL_TICKS, SWEEP_INTERVAL_TICKS);
     }
     
     /**
      * 取得調色板列表 (使用快取)
+     * 篩選條件的頁碼與數量是 GUI 的分頁；實際向 API 請求包含該頁的較大頁面，再從中切出所需部分
      */
     public CompletableFuture<APIResponse> getPalettes(PaletteFilter filter, boolean forceRefresh) {
-        String cacheKey = filter.toQueryString();
+        PaletteFilter upstream = toUpstream(filter);
+        if (upstream == filter) {
+            return getUpstreamPage(filter, forceRefresh);
+        }
+        
+        int limit = Math.max(1, filter.getLimit());
+        int window = upstream.getLimit();
+        int page = Math.max(1, filter.getPage());
+        int offset = (page - 1) * limit;
         
-        if (!forceRefresh) {
-            CachedResponse cached = listCache.get(cacheKey);
-            if (cached != null && !cached.isExpired()) {
-                plugin.getLogger().fine("使用快取的列表資料: " + cacheKey);
-                return CompletableFuture.completedFuture(cached.response);
+        return getUpstreamPage(upstream, forceRefresh).thenCompose(response -> {
+            if (!response.isSuccess()) {
+                return CompletableFuture.completedFuture(response);
             }
+            if (response.getPalettes().size() < window && upstream.getPage() < response.getTotalPages()) {
+                // API 限制了每頁數量，大頁面與 GUI 分頁無法對應，改為直接請求 GUI 的頁面
+                plugin.getLogger().fine("API 返回的數量少於請求的 " + window + " 個，改為直接請求");
+                return getUpstreamPage(filter, forceRefresh);
+            }
+            return CompletableFuture.completedFuture(slice(response, offset % window, limit, page));
+        });
+    }
+    
+    /**
+     * 取得包含 GUI 分頁的 API 頁面篩選條件
+     * 大頁面的數量取 GUI 每頁數量的倍數，GUI 的一頁不會跨越兩個大頁面；
+     * GUI 每頁數量已經夠大時直接返回原本的篩選條件
+     */
+    private PaletteFilter toUpstream(PaletteFilter filter) {
+        int limit = Math.max(1, filter.getLimit());
+        int window = upstreamPageSize / limit * limit;
+        if (window <= limit) {
+            return filter;
+        }
+        
+        int offset = (Math.max(1, filter.getPage()) - 1) * limit;
+        PaletteFilter upstream = filter.copy();
+        upstream.setLimit(window);
+        upstream.setPage(offset / window + 1);
+        return upstream;
+    }
+    
+    /**
+     * 取得 GUI 分頁實際使用的快取鍵
+     */
+    String cacheKeyOf(PaletteFilter filter) {
+        return toUpstream(filter).toQueryString();
+    }
+    
+    /**
+     * GUI 分頁的資料是否已在快取中（未過期）或正在取得
+     */
+    boolean isAvailable(PaletteFilter filter) {
+        String cacheKey = cacheKeyOf(filter);
+        CachedResponse cached = listCache.asMap().get(cacheKey);
+        return (cached != null && !cached.isExpired()) || inFlightLists.containsKey(cacheKey);
+    }
+    
+    /**
+     * 預先取得 GUI 分頁的資料，只寫入快取
+     */
+    CompletableFuture<APIResponse> prefetch(PaletteFilter filter) {
+        PaletteFilter upstream = toUpstream(filter);
+        String cacheKey = upstream.toQueryString();
+        listPrefetched.incrementAndGet();
+        return loadFromDiskAsync(cacheKey).thenCompose(fromDisk -> fromDisk != null && !fromDisk.isExpired()
+            ? CompletableFuture.completedFuture(fromDisk.response)
+            : fetchPalettes(upstream, cacheKey));
+    }
+    
+    /**
+     * 在玩家瀏覽第 N 頁時預先取得之後的頁面
+     *
+     * @param playerId 玩家
+     * @param filter 目前顯示的 GUI 分頁
+     * @param totalPages GUI 的總頁數
+     */
+    public void prefetchAfter(UUID playerId, PaletteFilter filter, int totalPages) {
+        prefetcher.request(playerId, filter, totalPages);
+    }
+    
+    /**
+     * 取消玩家尚未開始的預先取得（例如關閉 GUI 時）
+     */
+    public void cancelPrefetch(UUID playerId) {
+        prefetcher.cancel(playerId);
+    }
+    
+    /**
+     * 從大頁面切出 GUI 的一頁
+     */
+    private static APIResponse slice(APIResponse upstream, int start, int limit, int page) {
+        List<PaletteData> palettes = upstream.getPalettes();
+        int from = Math.min(start, palettes.size());
+        int to = Math.min(from + limit, palettes.size());
+        
+        APIResponse result = new APIResponse();
+        result.setSuccess(true);
+        result.setTotalResults(upstream.getTotalResults());
+        result.setCurrentPage(page);
+        result.setTotalPages((upstream.getTotalResults() + limit - 1) / limit);
+        result.setPalettes(new ArrayList<>(palettes.subList(from, to)));
+        return result;
+    }
+    
+    /**
+     * 取得 API 的一頁列表 (使用快取)
+     * 過期的快取會立即返回並在背景更新；強制重新整理失敗時退回現有的快取
+     */
+    private CompletableFuture<APIResponse> getUpstreamPage(PaletteFilter filter, boolean forceRefresh) {
+        String cacheKey = filter.toQueryString();
+        CachedResponse cached = listCache.getIfPresent(cacheKey);
+        
+        if (!forceRefresh && cached != null) {
+            return CompletableFuture.completedFuture(serveCached(filter, cacheKey, cached));
+        }
+        
+        if (!forceRefresh && diskCache.isEnabled()) {
+            // 記憶體未命中時先查磁碟快取
+            return loadFromDiskAsync(cacheKey).thenCompose(fromDisk -> fromDisk != null
+                ? CompletableFuture.completedFuture(serveCached(filter, cacheKey, fromDisk))
+                : fetchAndRecord(filter, cacheKey, null));
         }
         
-        // 快取過期或強制重新整理，從 API 取得
-        return api.getPalettes(filter).thenApply(response -> {
+        return fetchAndRecord(filter, cacheKey, cached);
+    }
+    
+    /**
+     * 提供快取的列表，過期時在背景更新（離線模式不更新）
+     */
+    private APIResponse serveCached(PaletteFilter filter, String cacheKey, CachedResponse cached) {
+        boolean stale = cached.isExpired();
+        listHits.incrementAndGet();
+        refreshScheduler.getStats(LIST_DATASET).recordServed(stale);
+        if (stale && !offline) {
+            refreshScheduler.revalidate(LIST_DATASET, cacheKey,
+                () -> fetchPalettes(filter, cacheKey).thenApply(APIResponse::isSuccess));
+        }
+        plugin.getLogger().fine("使用快取的列表資料: " + cacheKey + (stale ? " (過期)" : ""));
+        return cached.response;
+    }
+    
+    /**
+     * 從 API 取得列表並記錄更新統計；失敗時退回現有的快取
+     */
+    private CompletableFuture<APIResponse> fetchAndRecord(PaletteFilter filter, String cacheKey, CachedResponse cached) {
+        listMisses.incrementAndGet();
+        RefreshStats stats = refreshScheduler.getStats(LIST_DATASET);
+        long start = System.nanoTime();
+        return fetchPalettes(filter, cacheKey).thenApply(response -> {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
             if (response.isSuccess()) {
-                listCache.put(cacheKey, new CachedResponse(response, listCacheDuration));
-                plugin.getLogger().fine("已快取列表資料: " + cacheKey);
+                stats.recordSuccess(latency);
+                return response;
+            }
+            stats.recordFailure(latency);
+            return cached != null ? cached.response : response;
+        });
+    }
+    
+    /**
+     * 從 API 取得列表並寫入快取
+     * 相同條件已有請求進行中時直接共用
+     */
+    private CompletableFuture<APIResponse> fetchPalettes(PaletteFilter filter, String cacheKey) {
+        return coalesce(inFlightLists, cacheKey, listCoalesced, () -> {
+            if (offline) {
+                return CompletableFuture.supplyAsync(() -> loadOffline(cacheKey), ioExecutor);
             }
-            return response;
+            return api.getPalettes(filter).thenApply(response -> {
+                if (response.isSuccess()) {
+                    listCache.put(cacheKey, new CachedResponse(response, System.currentTimeMillis() + listCacheDuration));
+                    diskCache.save(cacheKey, response);
+                    index.addAll(response.getPalettes());
+                    plugin.getLogger().fine("已快取列表資料: " + cacheKey);
+                    return response;
+                }
+                
+                // API 無法使用時退回磁碟快取
+                CachedResponse fromDisk = loadFromDisk(cacheKey);
+                return fromDisk != null ? fromDisk.response : response;
+            });
         });
     }
     
+    /**
+     * 離線模式：只從磁碟快取取得列表
+     */
+    private APIResponse loadOffline(String cacheKey) {
+        CachedResponse fromDisk = loadFromDisk(cacheKey);
+        if (fromDisk != null) {
+            return fromDisk.response;
+        }
+        
+        APIResponse response = new APIResponse();
+        response.setSuccess(false);
+        response.setError("Offline mode: this page is not cached");
+        response.setErrorCode("OFFLINE");
+        return response;
+    }
+    
+    /**
+     * 從磁碟快取讀取列表並放入記憶體快取
+     * 過期時間以原本從 API 取得的時間計算
+     *
+     * @return 快取項目，不存在時返回 null
+     */
+    private CachedResponse loadFromDisk(String cacheKey) {
+        PaletteDiskCache.Entry entry = diskCache.load(cacheKey);
+        if (entry == null) {
+            return null;
+        }
+        
+        listDiskHits.incrementAndGet();
+        index.addAll(entry.response.getPalettes());
+        CachedResponse cached = new CachedResponse(entry.response, entry.savedTime + listCacheDuration);
+        listCache.put(cacheKey, cached);
+        plugin.getLogger().fine("從磁碟載入列表資料: " + cacheKey);
+        return cached;
+    }
+    
+    /**
+     * 在背景執行緒讀取磁碟快取，避免在主執行緒上進行檔案 I/O
+     */
+    private CompletableFuture<CachedResponse> loadFromDiskAsync(String cacheKey) {
+        if (!diskCache.isEnabled()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.supplyAsync(() -> loadFromDisk(cacheKey), ioExecutor)
+            .exceptionally(e -> null);
+    }
+    
     /**
      * 取得調色板詳細資訊 (使用快取)
+     * 過期的快取會立即返回並在背景更新
      */
     public CompletableFuture<PaletteData> getPaletteDetails(int id, boolean forceRefresh) {
-        if (!forceRefresh) {
-            CachedPalette cached = detailCache.get(id);
-            if (cached != null && !cached.isExpired()) {
-                plugin.getLogger().fine("使用快取的詳細資料: " + id);
-                return CompletableFuture.completedFuture(cached.data);
+        CachedPalette cached = detailCache.getIfPresent(id);
+        
+        if (!forceRefresh && cached != null) {
+            boolean stale = cached.isExpired();
+            detailHits.incrementAndGet();
+            refreshScheduler.getStats(DETAIL_DATASET).recordServed(stale);
+            if (stale) {
+                refreshScheduler.revalidate(DETAIL_DATASET, id,
+                    () -> fetchPaletteDetails(id).thenApply(data -> data != null));
             }
+            plugin.getLogger().fine("使用快取的詳細資料: " + id + (stale ? " (過期)" : ""));
+            return CompletableFuture.completedFuture(cached.data);
         }
         
-        // 快取過期或強制重新整理，從 API 取得
-        return api.getPaletteDetails(id).thenApply(data -> {
+        // 沒有快取或強制重新整理，從 API 取得
+        detailMisses.incrementAndGet();
+        RefreshStats stats = refreshScheduler.getStats(DETAIL_DATASET);
+        long start = System.nanoTime();
+        return fetchPaletteDetails(id).thenApply(data -> {
+            long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            if (data != null) {
+                stats.recordSuccess(latency);
+                return data;
+            }
+            stats.recordFailure(latency);
+            return cached != null ? cached.data : null;
+        });
+    }
+    
+    /**
+     * 從 API 取得詳細資訊並寫入快取
+     */
+    private CompletableFuture<PaletteData> fetchPaletteDetails(int id) {
+        return coalesce(inFlightDetails, id, detailCoalesced, () -> api.getPaletteDetails(id).thenApply(data -> {
             if (data != null) {
                 detailCache.put(id, new CachedPalette(data, detailCacheDuration));
                 plugin.getLogger().fine("已快取詳細資料: " + id);
             }
             return data;
+        }));
+    }
+    
+    /**
+     * 合併相同鍵的並行請求
+     * 第一個請求負責呼叫 loader，其他請求取得同一個 future；
+     * 完成時先移除進行中的記錄再通知等待者，之後的請求會直接讀到快取
+     */
+    private static <K, V> CompletableFuture<V> coalesce(Map<K, CompletableFuture<V>> inFlight, K key,
+                                                       AtomicLong coalesced, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return existing;
+        }
+        
+        CompletableFuture<V> source;
+        try {
+            source = loader.get();
+        } catch (RuntimeException e) {
+            source = CompletableFuture.failedFuture(e);
+        }
+        source.whenComplete((value, error) -> {
+            inFlight.remove(key, future);
+            if (error != null) {
+                future.completeExceptionally(error);
+            } else {
+                future.complete(value);
+            }
         });
+        return future;
+    }
+    
+    /**
+     * 取得本地調色板索引
+     */
+    public PaletteIndex getIndex() {
+        return index;
     }
     
     /**
      * 清除所有快取
      */
     public void clearAll() {
-        listCache.clear();
-        detailCache.clear();
+        listCache.invalidateAll();
+        detailCache.invalidateAll();
+        if (!offline) {
+            // 離線模式下磁碟快取是唯一的資料來源，不清除
+            diskCache.clear();
+        }
+        refreshScheduler.forget(LIST_DATASET);
+        refreshScheduler.forget(DETAIL_DATASET);
         plugin.getLogger().info("已清除所有快取");
     }
     
     /**
-     * 清除過期的快取項目
+     * 清除過期太久或太久沒被讀取的快取項目
+     * 剛過期的項目仍會保留，以便在背景更新期間繼續提供
      */
     public void cleanupExpired() {
-        listCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
-        detailCache.entrySet().removeIf(entry -> entry.getValue().isExpired());
+        listCache.cleanUp();
+        detailCache.cleanUp();
         plugin.getLogger().fine("已清理過期快取");
     }
     
@@ -109,19 +492,42 @@ public class PaletteCache {
      * 取得快取統計資訊
      */
     public Map<String, Object> getStatistics() {
-        return Map.of(
-            "list_cache_size", listCache.size(),
-            "detail_cache_size", detailCache.size(),
-            "list_cache_duration_ms", listCacheDuration,
-            "detail_cache_duration_ms", detailCacheDuration
-        );
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("list_cache_size", listCache.size());
+        stats.put("detail_cache_size", detailCache.size());
+        stats.put("max_size_kb", maxWeight / 1024);
+        stats.put("list_evictions", listCache.stats().evictionCount());
+        stats.put("detail_evictions", detailCache.stats().evictionCount());
+        stats.put("list_cache_duration_ms", listCacheDuration);
+        stats.put("detail_cache_duration_ms", detailCacheDuration);
+        stats.put("list_hits", listHits.get());
+        stats.put("list_misses", listMisses.get());
+        stats.put("list_coalesced", listCoalesced.get());
+        stats.put("list_prefetched", listPrefetched.get());
+        stats.put("disk_hits", listDiskHits.get());
+        stats.put("disk_entries", diskCache.getEntryCount());
+        stats.put("disk_size_kb", diskCache.getTotalBytes() / 1024);
+        stats.put("disk_max_kb", diskCache.getMaxBytes() / 1024);
+        stats.put("offline", offline);
+        stats.put("index_palettes", index.size());
+        stats.put("index_blocks", index.getBlockCount());
+        stats.put("detail_hits", detailHits.get());
+        stats.put("detail_misses", detailMisses.get());
+        stats.put("detail_coalesced", detailCoalesced.get());
+        stats.put("list_refresh", refreshScheduler.getStats(LIST_DATASET));
+        stats.put("detail_refresh", refreshScheduler.getStats(DETAIL_DATASET));
+        return stats;
     }
     
     /**
      * 清理資源
      */
     public void cleanup() {
-        clearAll();
+        sweepTask.cancel();
+        prefetcher.cancelAll();
+        // 只清除記憶體快取，磁碟快取保留給下次啟動
+        listCache.invalidateAll();
+        detailCache.invalidateAll();
     }
     
     /**
@@ -130,10 +536,12 @@ public class PaletteCache {
     private static class CachedResponse {
         final APIResponse response;
         final long expireTime;
+        final int weight;
         
-        CachedResponse(APIResponse response, long duration) {
+        CachedResponse(APIResponse response, long expireTime) {
             this.response = response;
-            this.expireTime = System.currentTimeMillis() + duration;
+            this.expireTime = expireTime;
+            this.weight = estimateSize(response);
         }
         
         boolean isExpired() {
@@ -147,14 +555,56 @@ public class PaletteCache {
     private static class CachedPalette {
         final PaletteData data;
         final long expireTime;
+        final int weight;
         
         CachedPalette(PaletteData data, long duration) {
             this.data = data;
             this.expireTime = System.currentTimeMillis() + duration;
+            this.weight = estimateSize(data);
         }
         
         boolean isExpired() {
             return System.currentTimeMillis() > expireTime;
         }
     }
+    
+    /**
+     * 估計 API 回應佔用的記憶體 (位元組)
+     * 只需大致正確，用於限制快取總量
+     */
+    private static int estimateSize(APIResponse response) {
+        int size = 96 + estimateSize(response.getError()) + estimateSize(response.getErrorCode());
+        List<PaletteData> palettes = response.getPalettes();
+        if (palettes != null) {
+            size += 16 + palettes.size() * 8;
+            for (PaletteData palette : palettes) {
+                size += estimateSize(palette);
+            }
+        }
+        return size;
+    }
+    
+    private static int estimateSize(PaletteData data) {
+        int size = 64 + estimateSize(data.getAuthor()) + estimateSize(data.getUploadTime())
+            + estimateSize(data.getTimestamp());
+        List<String> blocks = data.getBlocks();
+        if (blocks != null) {
+            size += 16 + blocks.size() * 8;
+            for (String block : blocks) {
+                size += estimateSize(block);
+            }
+        }
+        List<PaletteData> similar = data.getSimilarPalettes();
+        if (similar != null) {
+            size += 16 + similar.size() * 8;
+            for (PaletteData palette : similar) {
+                size += estimateSize(palette);
+            }
+        }
+        return size;
+    }
+    
+    private static int estimateSize(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
 }
@@ -0,0 +1,330 @@
+package dev.twme.ombre.blockpalettes.cache;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+import dev.twme.ombre.Ombre;
+import dev.twme.ombre.blockpalettes.api.APIResponse;
+import dev.twme.ombre.blockpalettes.api.PaletteData;
+
+/**
+ * 調色板列表的磁碟快取（第二層快取）
+ * 每個查詢字串存成 blockpalettes/cache/ 下的一個二進位檔，重新啟動後不必再向 API 請求。
+ * 檔案只在記憶體快取未命中時才讀取；總大小超過上限時刪除最久沒被使用的檔案
+ *
+ * 格式：magic、版本、查詢字串、儲存時間、總結果數、目前頁碼、總頁數、調色板數，
+ * 接著每個調色板依序為 ID、作者、相對時間、時間戳記、讚數、瀏覽數與方塊 ID
+ */
+class PaletteDiskCache {
+
+    /**
+     * 檔案格式識別碼與版本
+     */
+    static final int MAGIC = 0x4F4D4250; // "OMBP"
+    static final int FORMAT_VERSION = 2;
+
+    private static final String SUFFIX = ".bin";
+
+    // 每個調色板最多的方塊數（以 unsigned short 儲存）
+    private static final int MAX_BLOCKS = 0xFFFF;
+
+    // 一個調色板紀錄最少的位元組數：ID、3 個字串的存在旗標、讚數、瀏覽數、方塊數
+    private static final int MIN_PALETTE_BYTES = 4 + 3 + 4 + 4 + 2;
+
+    private final Ombre plugin;
+    private final File directory;
+    private final boolean enabled;
+    private final long maxBytes;
+
+    /**
+     * 從磁碟讀取的快取項目
+     */
+    static final class Entry {
+        final APIResponse response;
+        final long savedTime;
+
+        Entry(APIResponse response, long savedTime) {
+            this.response = response;
+            this.savedTime = savedTime;
+        }
+    }
+
+    PaletteDiskCache(Ombre plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "blockpalettes/cache");
+        this.enabled = plugin.getConfig().getBoolean("block-palettes.disk-cache.enabled", true);
+        this.maxBytes = Math.max(1, plugin.getConfig().getLong("block-palettes.disk-cache.max-size-mb", 32)) * 1024 * 1024;
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 讀取查詢字串對應的快取
+     *
+     * @return 快取項目，不存在或無法讀取時返回 null
+     */
+    Entry load(String key) {
+        if (!enabled) {
+            return null;
+        }
+
+        File file = fileOf(key);
+        if (!file.isFile()) {
+            return null;
+        }
+
+        try {
+            Entry entry = read(file, key);
+            if (entry != null) {
+                // 以修改時間記錄最後使用時間，超過上限時依此淘汰
+                file.setLastModified(System.currentTimeMillis());
+            }
+            return entry;
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().fine("無法讀取調色板磁碟快取 " + file.getName() + ": " + e);
+            file.delete();
+            return null;
+        }
+    }
+
+    /**
+     * 寫入查詢字串的快取
+     * 先寫入暫存檔再取代目標檔案，中途失敗不會留下不完整的檔案
+     */
+    synchronized void save(String key, APIResponse response) {
+        if (!enabled || !response.isSuccess()) {
+            return;
+        }
+
+        if (!directory.exists()) {
+            directory.mkdirs();
+        }
+
+        File file = fileOf(key);
+        File temp = new File(directory, file.getName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(temp), 8192))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(key);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(response.getTotalResults());
+                out.writeInt(response.getCurrentPage());
+                out.writeInt(response.getTotalPages());
+
+                List<PaletteData> palettes = response.getPalettes();
+                out.writeInt(palettes.size());
+                for (PaletteData palette : palettes) {
+                    out.writeInt(palette.getId());
+                    writeString(out, palette.getAuthor());
+                    writeString(out, palette.getUploadTime());
+                    writeString(out, palette.getTimestamp());
+                    out.writeInt(palette.getLikes());
+                    out.writeInt(palette.getViews());
+
+                    List<String> blocks = palette.getBlocks() != null ? palette.getBlocks() : List.of();
+                    if (blocks.size() > MAX_BLOCKS) {
+                        throw new IOException("Too many blocks in palette " + palette.getId() + ": " + blocks.size());
+                    }
+                    out.writeShort(blocks.size());
+                    for (String block : blocks) {
+                        out.writeUTF(block);
+                    }
+                }
+            }
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Failed to write palette disk cache", e);
+            temp.delete();
+            return;
+        }
+
+        enforceLimit();
+    }
+
+    /**
+     * 依序讀取所有快取檔案（用於建立本地索引），無法讀取的檔案會被略過
+     */
+    void forEach(Consumer<APIResponse> action) {
+        if (!enabled) {
+            return;
+        }
+        for (File file : listFiles()) {
+            try {
+                Entry entry = read(file, null);
+                if (entry != null) {
+                    action.accept(entry.response);
+                }
+            } catch (IOException | RuntimeException e) {
+                // 只略過這個檔案，不中斷其他檔案的讀取
+                plugin.getLogger().fine("無法讀取調色板磁碟快取 " + file.getName() + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * 刪除所有快取檔案
+     */
+    synchronized void clear() {
+        for (File file : listFiles()) {
+            file.delete();
+        }
+    }
+
+    /**
+     * @return 快取檔案數
+     */
+    int getEntryCount() {
+        return listFiles().size();
+    }
+
+    /**
+     * @return 快取檔案的總大小 (位元組)
+     */
+    long getTotalBytes() {
+        long total = 0;
+        for (File file : listFiles()) {
+            total += file.length();
+        }
+        return total;
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    /**
+     * 總大小超過上限時，從最久沒被使用的檔案開始刪除
+     */
+    private void enforceLimit() {
+        List<File> files = listFiles();
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        files.sort(Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+            }
+        }
+    }
+
+    private List<File> listFiles() {
+        File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        return files != null ? new ArrayList<>(Arrays.asList(files)) : new ArrayList<>();
+    }
+
+    /**
+     * 以查詢字串的雜湊作為檔名，實際的查詢字串存在檔案中讀取時再比對
+     */
+    private File fileOf(String key) {
+        return new File(directory, hash(key) + SUFFIX);
+    }
+
+    private static Entry read(File file, String key) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a palette cache file");
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported palette cache version: " + version);
+        }
+        String storedKey = in.readUTF();
+        if (key != null && !key.equals(storedKey)) {
+            // 雜湊碰撞，視為不存在
+            return null;
+        }
+
+        long savedTime = in.readLong();
+        APIResponse response = new APIResponse();
+        response.setSuccess(true);
+        response.setTotalResults(in.readInt());
+        response.setCurrentPage(in.readInt());
+        response.setTotalPages(in.readInt());
+
+        // 數量先與剩餘的位元組數比對，損毀的檔案不會配置過大的清單
+        int count = in.readInt();
+        if (count < 0 || count > in.available() / MIN_PALETTE_BYTES) {
+            throw new IOException("Invalid palette count: " + count);
+        }
+        List<PaletteData> palettes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PaletteData palette = new PaletteData();
+            palette.setId(in.readInt());
+            palette.setAuthor(readString(in));
+            String uploadTime = readString(in);
+            palette.setTimestamp(readString(in));
+            palette.setUploadTime(uploadTime);
+            palette.setLikes(in.readInt());
+            palette.setViews(in.readInt());
+
+            int blockCount = in.readUnsignedShort();
+            if (blockCount > in.available() / 2) {
+                throw new IOException("Invalid block count: " + blockCount);
+            }
+            List<String> blocks = new ArrayList<>(blockCount);
+            for (int j = 0; j < blockCount; j++) {
+                blocks.add(in.readUTF());
+            }
+            palette.setBlocks(blocks);
+            palettes.add(palette);
+        }
+        response.setPalettes(palettes);
+        return new Entry(response, savedTime);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static String hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            return Integer.toHexString(key.hashCode());
+        }
+    }
+}
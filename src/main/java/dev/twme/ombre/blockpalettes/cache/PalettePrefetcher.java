@@ -0,0 +1,149 @@
+package dev.twme.ombre.blockpalettes.cache;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import dev.twme.ombre.Ombre;
+import dev.twme.ombre.blockpalettes.api.PaletteFilter;
+
+/**
+ * 調色板列表的預先取得
+ * 玩家看完第 N 頁後通常會點下一頁，因此在背景先取得之後的頁面放入快取。
+ * 預先取得的優先度低於玩家的請求：同時進行的數量有全域上限，每位玩家也有各自的額度，
+ * 超過時排隊等待；玩家關閉 GUI 時取消尚未開始的工作
+ */
+class PalettePrefetcher {
+
+    private final Ombre plugin;
+    private final PaletteCache cache;
+
+    private final boolean enabled;
+    private final int pagesAhead;
+    private final int maxConcurrent;
+    private final int perPlayer;
+
+    // 以下欄位由 this 保護
+    private final Deque<Task> pending = new ArrayDeque<>();
+    private final Map<UUID, Integer> perPlayerCount = new HashMap<>();  // 排隊中與進行中的數量
+    private int running;
+
+    PalettePrefetcher(Ombre plugin, PaletteCache cache) {
+        this.plugin = plugin;
+        this.cache = cache;
+        this.enabled = plugin.getConfig().getBoolean("block-palettes.prefetch.enabled", true);
+        this.pagesAhead = Math.max(0, Math.min(2, plugin.getConfig().getInt("block-palettes.prefetch.pages", 1)));
+        this.maxConcurrent = Math.max(1, plugin.getConfig().getInt("block-palettes.prefetch.max-concurrent", 2));
+        this.perPlayer = Math.max(1, plugin.getConfig().getInt("block-palettes.prefetch.per-player", 2));
+    }
+
+    /**
+     * 排入目前頁面之後的頁面
+     * 已在快取中、正在取得或超過總頁數的頁面會被略過
+     */
+    void request(UUID playerId, PaletteFilter filter, int totalPages) {
+        if (!enabled) {
+            return;
+        }
+
+        synchronized (this) {
+            for (int ahead = 1; ahead <= pagesAhead; ahead++) {
+                int page = filter.getPage() + ahead;
+                if (page > totalPages) {
+                    break;
+                }
+                if (perPlayerCount.getOrDefault(playerId, 0) >= perPlayer) {
+                    break;
+                }
+
+                PaletteFilter next = filter.copy();
+                next.setPage(page);
+                if (cache.isAvailable(next) || isPending(next)) {
+                    continue;
+                }
+
+                pending.addLast(new Task(playerId, next));
+                perPlayerCount.merge(playerId, 1, Integer::sum);
+            }
+        }
+        drain();
+    }
+
+    /**
+     * 取消玩家排隊中的預先取得
+     * 已送出的請求會繼續完成並寫入快取，但不再佔用玩家的額度
+     */
+    synchronized void cancel(UUID playerId) {
+        pending.removeIf(task -> task.playerId.equals(playerId));
+        perPlayerCount.remove(playerId);
+    }
+
+    /**
+     * 取消所有排隊中的預先取得
+     */
+    synchronized void cancelAll() {
+        pending.clear();
+        perPlayerCount.clear();
+    }
+
+    /**
+     * 在全域上限內開始排隊中的工作
+     */
+    private void drain() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                if (running >= maxConcurrent || pending.isEmpty()) {
+                    return;
+                }
+                task = pending.pollFirst();
+                running++;
+            }
+
+            if (cache.isAvailable(task.filter)) {
+                finish(task);
+                continue;
+            }
+
+            plugin.getLogger().fine("預先取得列表: " + task.filter.toQueryString());
+            cache.prefetch(task.filter).whenComplete((response, error) -> {
+                finish(task);
+                drain();
+            });
+        }
+    }
+
+    private synchronized void finish(Task task) {
+        running--;
+        // 取消後玩家的計數已被移除，不會變成負數
+        perPlayerCount.computeIfPresent(task.playerId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * 是否已有對應同一個 API 頁面的工作在排隊
+     */
+    private boolean isPending(PaletteFilter filter) {
+        String cacheKey = cache.cacheKeyOf(filter);
+        for (Task task : pending) {
+            if (cache.cacheKeyOf(task.filter).equals(cacheKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 排隊中的預先取得
+     */
+    private static final class Task {
+        final UUID playerId;
+        final PaletteFilter filter;
+
+        Task(UUID playerId, PaletteFilter filter) {
+            this.playerId = playerId;
+            this.filter = filter;
+        }
+    }
+}
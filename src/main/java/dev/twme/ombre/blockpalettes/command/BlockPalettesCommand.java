@@ -14,10 +14,14 @@ import org.jetbrains.annotations.Nullable;
 
 import dev.twme.ombre.Ombre;
 import dev.twme.ombre.blockpalettes.BlockPalettesFeature;
+import dev.twme.ombre.blockpalettes.api.PaletteData;
+import dev.twme.ombre.blockpalettes.cache.PaletteCache;
 import dev.twme.ombre.blockpalettes.gui.FavoritesGUI;
 import dev.twme.ombre.blockpalettes.gui.PalettesListGUI;
 import dev.twme.ombre.blockpalettes.gui.TermsAcceptanceGUI;
+import dev.twme.ombre.blockpalettes.index.PaletteIndex;
 import dev.twme.ombre.i18n.MessageManager;
+import dev.twme.ombre.refresh.RefreshStats;
 
 /**
  * Block Palettes 指令處理器
@@ -29,6 +33,9 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
     private final BlockPalettesFeature feature;
     private final MessageManager messageManager;
     
+    // search / similar 子指令最多列出的調色板數
+    private static final int SEARCH_RESULTS = 10;
+    
     public BlockPalettesCommand(Ombre plugin, BlockPalettesFeature feature) {
         this.plugin = plugin;
         this.feature = feature;
@@ -62,6 +69,8 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
             case "cache" -> handleCache(player);
             case "terms" -> handleTerms(player, args);
             case "favorites", "fav" -> handleFavorites(player);
+            case "search" -> handleSearch(player, args);
+            case "similar" -> handleSimilar(player, args);
             case "help" -> handleHelp(player);
             default -> {
                 player.sendMessage(messageManager.getComponent("blockpalettes.command.unknown-subcommand", "subcommand", subCommand));
@@ -138,6 +147,36 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.header"));
         player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.list-size", "count", stats.get("list_cache_size").toString()));
         player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.detail-size", "count", stats.get("detail_cache_size").toString()));
+        for (String key : new String[]{"list_refresh", "detail_refresh"}) {
+            RefreshStats refresh = (RefreshStats) stats.get(key);
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.refresh",
+                "dataset", refresh.getDataset(),
+                "age", RefreshStats.formatDuration(refresh.getAgeMillis()),
+                "latency", refresh.getLastLatencyMillis() < 0 ? "-" : String.valueOf(refresh.getLastLatencyMillis()),
+                "average", refresh.getAverageLatencyMillis() < 0 ? "-" : String.valueOf(refresh.getAverageLatencyMillis()),
+                "stale", String.valueOf(refresh.getStaleServed()),
+                "served", String.valueOf(refresh.getStaleServed() + refresh.getFreshServed()),
+                "failures", String.valueOf(refresh.getConsecutiveFailures())));
+        }
+        for (String prefix : new String[]{"list", "detail"}) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.requests",
+                "dataset", prefix.equals("list") ? PaletteCache.LIST_DATASET : PaletteCache.DETAIL_DATASET,
+                "hits", stats.get(prefix + "_hits").toString(),
+                "misses", stats.get(prefix + "_misses").toString(),
+                "coalesced", stats.get(prefix + "_coalesced").toString(),
+                "evictions", stats.get(prefix + "_evictions").toString()));
+        }
+        player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.disk",
+            "count", stats.get("disk_entries").toString(),
+            "size", stats.get("disk_size_kb").toString(),
+            "max", stats.get("disk_max_kb").toString(),
+            "hits", stats.get("disk_hits").toString()));
+        player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.index",
+            "palettes", stats.get("index_palettes").toString(),
+            "blocks", stats.get("index_blocks").toString()));
+        if (Boolean.TRUE.equals(stats.get("offline"))) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.offline"));
+        }
         player.sendMessage(messageManager.getComponent("blockpalettes.command.cache.footer"));
         
         return true;
@@ -179,6 +218,107 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
         return true;
     }
     
+    /**
+     * 處理 search 子指令
+     * 在本地索引中搜尋，每個參數都必須符合，參數內以 | 分隔的方塊符合任一即可
+     */
+    private boolean handleSearch(Player player, String[] args) {
+        if (!feature.getTermsTracker().hasAgreed(player.getUniqueId())) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.terms-required"));
+            return true;
+        }
+        
+        if (args.length < 2) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.usage"));
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.hint"));
+            return true;
+        }
+        
+        List<List<String>> clauses = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            List<String> blocks = new ArrayList<>();
+            for (String block : args[i].split("\\|")) {
+                if (!block.isBlank()) {
+                    blocks.add(block);
+                }
+            }
+            if (!blocks.isEmpty()) {
+                clauses.add(blocks);
+            }
+        }
+        
+        PaletteIndex index = feature.getCache().getIndex();
+        List<PaletteData> results = index.search(clauses, SEARCH_RESULTS);
+        if (results.isEmpty()) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.none"));
+            return true;
+        }
+        
+        player.sendMessage(messageManager.getComponent("blockpalettes.command.search.header",
+            "count", String.valueOf(results.size()),
+            "total", String.valueOf(index.size())));
+        sendPaletteEntries(player, results);
+        return true;
+    }
+    
+    /**
+     * 處理 similar 子指令
+     * 相似度搜尋需要掃描整個索引，在非同步執行緒上進行，完成後回到主執行緒顯示結果
+     */
+    private boolean handleSimilar(Player player, String[] args) {
+        if (!feature.getTermsTracker().hasAgreed(player.getUniqueId())) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.terms-required"));
+            return true;
+        }
+        
+        int id;
+        try {
+            id = Integer.parseInt(args.length >= 2 ? args[1].replace("#", "") : "");
+        } catch (NumberFormatException e) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.similar.usage"));
+            return true;
+        }
+        
+        PaletteIndex index = feature.getCache().getIndex();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            PaletteIndex.SimilarResult result = index.findSimilar(id, SEARCH_RESULTS);
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (player.isOnline()) {
+                    showSimilar(player, id, result);
+                }
+            });
+        });
+        return true;
+    }
+    
+    /**
+     * 顯示相似調色板的搜尋結果
+     */
+    private void showSimilar(Player player, int id, PaletteIndex.SimilarResult result) {
+        String key = switch (result.getStatus()) {
+            case UNKNOWN_PALETTE -> "blockpalettes.command.similar.unknown";
+            case NO_COLOR_DATA -> "blockpalettes.command.similar.no-colors";
+            case TARGET_WITHOUT_COLORS -> "blockpalettes.command.similar.target-no-colors";
+            case NO_MATCHES -> "blockpalettes.command.similar.none";
+            case FOUND -> "blockpalettes.command.similar.header";
+        };
+        player.sendMessage(messageManager.getComponent(key, "id", String.valueOf(id)));
+        sendPaletteEntries(player, result.getPalettes());
+    }
+    
+    /**
+     * 在聊天欄列出調色板
+     */
+    private void sendPaletteEntries(Player player, List<PaletteData> palettes) {
+        for (PaletteData palette : palettes) {
+            player.sendMessage(messageManager.getComponent("blockpalettes.command.search.entry",
+                "id", String.valueOf(palette.getId()),
+                "author", String.valueOf(palette.getAuthor()),
+                "likes", String.valueOf(palette.getLikes()),
+                "blocks", String.join(", ", palette.getBlocks())));
+        }
+    }
+    
     /**
      * 處理 favorites 子指令
      */
@@ -209,6 +349,8 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
         player.sendMessage(messageManager.getComponent("blockpalettes.command.help.reload"));
         player.sendMessage(messageManager.getComponent("blockpalettes.command.help.cache"));
         player.sendMessage(messageManager.getComponent("blockpalettes.command.help.terms"));
+        player.sendMessage(messageManager.getComponent("blockpalettes.command.help.search"));
+        player.sendMessage(messageManager.getComponent("blockpalettes.command.help.similar"));
         player.sendMessage(messageManager.getComponent("blockpalettes.command.help.footer"));
         return true;
     }
@@ -218,7 +360,15 @@ public class BlockPalettesCommand implements CommandExecutor, TabCompleter {
         List<String> completions = new ArrayList<>();
         
         if (args.length == 1) {
-            completions.addAll(List.of("reload", "cache", "terms", "favorites", "help"));
+            completions.addAll(List.of("reload", "cache", "terms", "favorites", "search", "similar", "help"));
+        } else if (args.length >= 2 && "search".equals(args[0].toLowerCase()) && feature.getCache() != null) {
+            // 補全最後一個 | 之後的方塊名稱
+            String arg = args[args.length - 1];
+            int separator = arg.lastIndexOf('|');
+            String head = arg.substring(0, separator + 1);
+            for (String block : feature.getCache().getIndex().getBlocksStartingWith(arg.substring(separator + 1), 50)) {
+                completions.add(head + block);
+            }
         } else if (args.length == 2 && "terms".equals(args[0].toLowerCase())) {
             if (sender.hasPermission("ombre.blockpalettes.terms.manage")) {
                 completions.add("reset");
@@ -3,6 +3,7 @@ package dev.twme.ombre.blockpalettes.gui;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.bukkit.Bukkit;
 import org.bukkit.Material;
@@ -10,6 +11,7 @@ import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
@@ -46,7 +48,7 @@ public class PalettesListGUI implements Listener {
         this.player = player;
         this.messageManager = plugin.getMessageManager();
         this.filter = new PaletteFilter();
-        this.filter.setLimit(4);  // 每頁只顯示 4 個調色板
+        this.filter.setLimit(4);  // 每頁只顯示 4 個調色板（快取會向 API 取得較大的頁面再切分）
         this.loading = false;
         
         // 建立 54 格箱子 (6x9)
@@ -184,20 +186,17 @@ public class PalettesListGUI implements Listener {
         }
         
         loading = true;
-        showLoading();
         
-        feature.getCache().getPalettes(filter, forceRefresh).thenAccept(response -> {
-            Bukkit.getScheduler().runTask(plugin, () -> {
-                this.currentResponse = response;
-                loading = false;
-                
-                if (response.isSuccess()) {
-                    displayPalettes(response.getPalettes());
-                    updatePageButtons();
-                } else {
-                    showError(response.getError());
-                }
-            });
+        CompletableFuture<APIResponse> future = feature.getCache().getPalettes(filter, forceRefresh);
+        if (future.isDone() && !future.isCompletedExceptionally()) {
+            // 快取命中（包含預先取得的頁面），直接在這個 tick 顯示
+            showResponse(future.join());
+            return;
+        }
+        
+        showLoading();
+        future.thenAccept(response -> {
+            Bukkit.getScheduler().runTask(plugin, () -> showResponse(response));
         }).exceptionally(ex -> {
             Bukkit.getScheduler().runTask(plugin, () -> {
                 loading = false;
@@ -207,6 +206,22 @@ public class PalettesListGUI implements Listener {
         });
     }
     
+    /**
+     * 顯示載入結果，成功時預先取得下一頁
+     */
+    private void showResponse(APIResponse response) {
+        this.currentResponse = response;
+        loading = false;
+        
+        if (response.isSuccess()) {
+            displayPalettes(response.getPalettes());
+            updatePageButtons();
+            feature.getCache().prefetchAfter(player.getUniqueId(), filter, response.getTotalPages());
+        } else {
+            showError(response.getError());
+        }
+    }
+    
     /**
      * 顯示調色板
      */
@@ -541,6 +556,19 @@ public class PalettesListGUI implements Listener {
         }
     }
     
+    /**
+     * 處理 GUI 關閉事件
+     * 搜尋與顏色篩選會暫時關閉此介面，之後重新開啟時會再次預先取得
+     */
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (!event.getInventory().equals(inventory) || !event.getPlayer().equals(player)) {
+            return;
+        }
+        
+        feature.getCache().cancelPrefetch(player.getUniqueId());
+    }
+    
     /**
      * 取得顏色顯示名稱
      */
@@ -0,0 +1,365 @@
+package dev.twme.ombre.blockpalettes.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import org.bukkit.Material;
+
+import dev.twme.ombre.Ombre;
+import dev.twme.ombre.blockcolors.BlockColorCache;
+import dev.twme.ombre.blockcolors.BlockColorsFeature;
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.blockpalettes.api.PaletteData;
+
+/**
+ * 本地調色板索引
+ * 所有從 API 或磁碟快取取得的調色板都會加入索引，可在記憶體中完成複雜的搜尋：
+ * 方塊 → 調色板 ID 的反向索引支援多方塊的 AND / OR 查詢，
+ * 每個調色板的 Lab 顏色（取自 {@link BlockColorCache}）用於尋找相似的調色板。
+ * 超過上限時移除最早加入的調色板
+ */
+public class PaletteIndex {
+
+    private final Ombre plugin;
+    private final int maxPalettes;
+
+    // 以下欄位由 this 保護
+    private final Map<Integer, Entry> palettes = new LinkedHashMap<>();  // 依加入順序
+    private final Map<String, Set<Integer>> byBlock = new HashMap<>();   // 方塊 ID -> 調色板 ID
+
+    public PaletteIndex(Ombre plugin) {
+        this.plugin = plugin;
+        this.maxPalettes = Math.max(100, plugin.getConfig().getInt("block-palettes.index.max-palettes", 50000));
+    }
+
+    /**
+     * 加入或更新調色板
+     */
+    public synchronized void addAll(Collection<PaletteData> list) {
+        for (PaletteData palette : list) {
+            if (palette == null || palette.getBlocks() == null || palette.getBlocks().isEmpty()) {
+                continue;
+            }
+
+            Entry previous = palettes.remove(palette.getId());
+            if (previous != null) {
+                unlink(previous);
+            }
+
+            Entry entry = new Entry(palette);
+            palettes.put(palette.getId(), entry);
+            for (String block : entry.blocks) {
+                byBlock.computeIfAbsent(block, k -> new HashSet<>()).add(palette.getId());
+            }
+        }
+
+        // 超過上限時移除最早加入的調色板
+        Iterator<Entry> iterator = palettes.values().iterator();
+        while (palettes.size() > maxPalettes && iterator.hasNext()) {
+            Entry eldest = iterator.next();
+            iterator.remove();
+            unlink(eldest);
+        }
+    }
+
+    /**
+     * 搜尋調色板
+     * 每個條件是一組方塊，調色板只要包含其中任一個即符合 (OR)；調色板必須符合所有條件 (AND)
+     *
+     * @param clauses 條件
+     * @param limit 最多返回數量
+     * @return 符合的調色板，依讚數由多到少排序
+     */
+    public synchronized List<PaletteData> search(List<? extends Collection<String>> clauses, int limit) {
+        if (clauses.isEmpty()) {
+            return List.of();
+        }
+
+        // 每個條件先取聯集，再從最小的集合開始取交集
+        List<Set<Integer>> sets = new ArrayList<>(clauses.size());
+        for (Collection<String> clause : clauses) {
+            Set<Integer> union = new HashSet<>();
+            for (String block : clause) {
+                Set<Integer> ids = byBlock.get(normalize(block));
+                if (ids != null) {
+                    union.addAll(ids);
+                }
+            }
+            if (union.isEmpty()) {
+                return List.of();
+            }
+            sets.add(union);
+        }
+        sets.sort(Comparator.comparingInt(Set::size));
+
+        Set<Integer> result = new HashSet<>(sets.get(0));
+        for (int i = 1; i < sets.size() && !result.isEmpty(); i++) {
+            result.retainAll(sets.get(i));
+        }
+
+        List<PaletteData> matches = new ArrayList<>(result.size());
+        for (int id : result) {
+            matches.add(palettes.get(id).palette);
+        }
+        matches.sort(Comparator.comparingInt(PaletteData::getLikes).reversed()
+            .thenComparing(Comparator.comparingInt(PaletteData::getId).reversed()));
+        return matches.size() > limit ? new ArrayList<>(matches.subList(0, limit)) : matches;
+    }
+
+    /**
+     * 尋找顏色相近的調色板
+     * 兩個調色板的距離是每個方塊到另一個調色板最接近方塊的平均 ΔE (CIE76)，雙向取平均，
+     * 因此與方塊順序無關。
+     * 需要掃描整個索引，請勿在主執行緒呼叫；掃描時不持有索引的鎖，不會阻擋 {@link #addAll}
+     *
+     * @param id 調色板 ID
+     * @param limit 最多返回數量
+     * @return 搜尋結果
+     */
+    public SimilarResult findSimilar(int id, int limit) {
+        Entry target;
+        Entry[] candidates;
+        synchronized (this) {
+            target = palettes.get(id);
+            if (target == null) {
+                return new SimilarResult(SimilarStatus.UNKNOWN_PALETTE, List.of());
+            }
+            candidates = palettes.values().toArray(new Entry[0]);
+        }
+
+        BlockColorCache colors = getBlockColorCache();
+        if (colors == null || colors.getAllBlocks().isEmpty()) {
+            return new SimilarResult(SimilarStatus.NO_COLOR_DATA, List.of());
+        }
+        float[] targetLab = target.lab(colors);
+        if (targetLab.length == 0) {
+            return new SimilarResult(SimilarStatus.TARGET_WITHOUT_COLORS, List.of());
+        }
+        if (limit <= 0) {
+            return new SimilarResult(SimilarStatus.NO_MATCHES, List.of());
+        }
+
+        // 保留距離最小的 limit 個（最大堆積，堆頂是目前最遠的）
+        PriorityQueue<Match> best = new PriorityQueue<>(Comparator.comparingDouble((Match m) -> m.distance).reversed());
+        for (Entry entry : candidates) {
+            if (entry == target) {
+                continue;
+            }
+            float[] lab = entry.lab(colors);
+            if (lab.length == 0) {
+                continue;
+            }
+
+            double distance = distance(targetLab, lab);
+            if (best.size() < limit) {
+                best.add(new Match(entry.palette, distance));
+            } else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Match(entry.palette, distance));
+            }
+        }
+
+        List<Match> sorted = new ArrayList<>(best);
+        sorted.sort(Comparator.comparingDouble(m -> m.distance));
+        List<PaletteData> result = new ArrayList<>(sorted.size());
+        for (Match match : sorted) {
+            result.add(match.palette);
+        }
+        return new SimilarResult(result.isEmpty() ? SimilarStatus.NO_MATCHES : SimilarStatus.FOUND, result);
+    }
+
+    /**
+     * 取得以指定字首開頭的方塊 ID（用於指令補全）
+     */
+    public synchronized List<String> getBlocksStartingWith(String prefix, int limit) {
+        String normalized = normalize(prefix);
+        List<String> result = new ArrayList<>();
+        for (String block : byBlock.keySet()) {
+            if (block.startsWith(normalized)) {
+                result.add(block);
+            }
+        }
+        result.sort(null);
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    public synchronized PaletteData get(int id) {
+        Entry entry = palettes.get(id);
+        return entry != null ? entry.palette : null;
+    }
+
+    public synchronized int size() {
+        return palettes.size();
+    }
+
+    public synchronized int getBlockCount() {
+        return byBlock.size();
+    }
+
+    private void unlink(Entry entry) {
+        for (String block : entry.blocks) {
+            Set<Integer> ids = byBlock.get(block);
+            if (ids != null) {
+                ids.remove(entry.palette.getId());
+                if (ids.isEmpty()) {
+                    byBlock.remove(block);
+                }
+            }
+        }
+    }
+
+    /**
+     * 取得方塊顏色資料（BlockColors 功能尚未載入時返回 null）
+     */
+    private BlockColorCache getBlockColorCache() {
+        BlockColorsFeature feature = plugin.getBlockColorsFeature();
+        return feature != null && feature.isInitialized() ? feature.getCache() : null;
+    }
+
+    private static String normalize(String block) {
+        return block.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 雙向的平均最近距離
+     */
+    private static double distance(float[] a, float[] b) {
+        return (nearestAverage(a, b) + nearestAverage(b, a)) / 2;
+    }
+
+    private static double nearestAverage(float[] from, float[] to) {
+        double total = 0;
+        for (int i = 0; i < from.length; i += 3) {
+            double nearest = Double.MAX_VALUE;
+            for (int j = 0; j < to.length; j += 3) {
+                double dl = from[i] - to[j];
+                double da = from[i + 1] - to[j + 1];
+                double db = from[i + 2] - to[j + 2];
+                nearest = Math.min(nearest, dl * dl + da * da + db * db);
+            }
+            total += Math.sqrt(nearest);
+        }
+        return total / (from.length / 3);
+    }
+
+    /**
+     * 索引中的調色板
+     */
+    private static final class Entry {
+        final PaletteData palette;
+        final String[] blocks;
+        // 各方塊的 Lab 值 (L, a, b 依序排列)，第一次用到時計算；長度 0 表示沒有可用的顏色。
+        // 方塊顏色資料更新後依版本重新計算
+        private volatile Lab lab;
+
+        Entry(PaletteData palette) {
+            this.palette = palette;
+            this.blocks = palette.getBlocks().stream()
+                .map(PaletteIndex::normalize)
+                .distinct()
+                .toArray(String[]::new);
+        }
+
+        /**
+         * @return Lab 向量（L, a, b 依序排列），沒有任何方塊有顏色資料時長度為 0
+         */
+        float[] lab(BlockColorCache colors) {
+            int version = colors.getDataVersion();
+            Lab cached = lab;
+            if (cached != null && cached.version == version) {
+                return cached.values;
+            }
+
+            float[] values = new float[blocks.length * 3];
+            int count = 0;
+            for (String block : blocks) {
+                Material material = Material.getMaterial(block.toUpperCase(Locale.ROOT));
+                BlockColorData data = material != null ? colors.getBlockByMaterial(material) : null;
+                if (data == null) {
+                    continue;
+                }
+                double[] color = data.getLab();
+                values[count * 3] = (float) color[0];
+                values[count * 3 + 1] = (float) color[1];
+                values[count * 3 + 2] = (float) color[2];
+                count++;
+            }
+
+            values = count == blocks.length ? values : Arrays.copyOf(values, count * 3);
+            lab = new Lab(version, values);
+            return values;
+        }
+    }
+
+    /**
+     * 依方塊顏色資料版本計算的 Lab 向量
+     */
+    private static final class Lab {
+        final int version;
+        final float[] values;
+
+        Lab(int version, float[] values) {
+            this.version = version;
+            this.values = values;
+        }
+    }
+
+    /**
+     * 相似調色板搜尋的結果狀態
+     */
+    public enum SimilarStatus {
+        FOUND,
+        UNKNOWN_PALETTE,        // 調色板不在索引中
+        NO_COLOR_DATA,          // 方塊顏色資料尚未載入
+        TARGET_WITHOUT_COLORS,  // 調色板的方塊都沒有顏色資料
+        NO_MATCHES              // 索引中沒有其他可比較的調色板
+    }
+
+    /**
+     * 相似調色板搜尋的結果
+     */
+    public static final class SimilarResult {
+        private final SimilarStatus status;
+        private final List<PaletteData> palettes;
+
+        SimilarResult(SimilarStatus status, List<PaletteData> palettes) {
+            this.status = status;
+            this.palettes = palettes;
+        }
+
+        public SimilarStatus getStatus() {
+            return status;
+        }
+
+        /**
+         * @return 由近到遠排序的調色板
+         */
+        public List<PaletteData> getPalettes() {
+            return palettes;
+        }
+    }
+
+    /**
+     * 相似度搜尋的候選結果
+     */
+    private static final class Match {
+        final PaletteData palette;
+        final double distance;
+
+        Match(PaletteData palette, double distance) {
+            this.palette = palette;
+            this.distance = distance;
+        }
+    }
+}
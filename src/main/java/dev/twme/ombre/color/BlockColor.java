@@ -5,9 +5,17 @@ import org.bukkit.Color;
 /**
  * 方塊顏色類別
  * 表示 RGB 顏色值
+ * 實例為不可變物件，建議透過 {@link #of(int, int, int)} 取得共享實例
  */
 public class BlockColor {
     
+    // 享元表大小（直接映射，必須為 2 的次方）
+    private static final int FLYWEIGHT_SIZE = 4096;
+    private static final int FLYWEIGHT_MASK = FLYWEIGHT_SIZE - 1;
+    
+    // 共享實例表，槽位衝突時直接覆寫
+    private static final BlockColor[] flyweights = new BlockColor[FLYWEIGHT_SIZE];
+    
     private final int red;
     private final int green;
     private final int blue;
@@ -18,11 +26,36 @@ public class BlockColor {
         this.blue = clamp(blue);
     }
     
+    /**
+     * 取得共享的顏色實例
+     */
+    public static BlockColor of(int red, int green, int blue) {
+        return of(PackedColor.pack(red, green, blue));
+    }
+    
+    /**
+     * 從打包的 RGB 值取得共享的顏色實例
+     * @param rgb RGB 整數值 (0xRRGGBB)
+     */
+    public static BlockColor of(int rgb) {
+        rgb &= 0xFFFFFF;
+        int slot = PackedColor.mix(rgb) & FLYWEIGHT_MASK;
+        
+        BlockColor color = flyweights[slot];
+        if (color != null && color.getRgb() == rgb) {
+            return color;
+        }
+        
+        color = new BlockColor(PackedColor.red(rgb), PackedColor.green(rgb), PackedColor.blue(rgb));
+        flyweights[slot] = color;
+        return color;
+    }
+    
     /**
      * 從 Bukkit Color 建立
      */
     public static BlockColor fromBukkitColor(Color color) {
-        return new BlockColor(color.getRed(), color.getGreen(), color.getBlue());
+        return of(color.getRed(), color.getGreen(), color.getBlue());
     }
     
     /**
@@ -38,7 +71,7 @@ public class BlockColor {
         int g = Integer.parseInt(hex.substring(2, 4), 16);
         int b = Integer.parseInt(hex.substring(4, 6), 16);
         
-        return new BlockColor(r, g, b);
+        return of(r, g, b);
     }
     
     public int getRed() {
@@ -53,6 +86,13 @@ public class BlockColor {
         return blue;
     }
     
+    /**
+     * 取得打包的 RGB 值 (0xRRGGBB)
+     */
+    public int getRgb() {
+        return (red << 16) | (green << 8) | blue;
+    }
+    
     /**
      * 轉換為十六進制字串
      */
@@ -71,10 +111,18 @@ public class BlockColor {
      * 計算與另一個顏色的距離（歐氏距離）
      */
     public double distanceTo(BlockColor other) {
+        return Math.sqrt(distanceSquaredTo(other));
+    }
+    
+    /**
+     * 計算與另一個顏色的距離平方
+     * 僅用於比較遠近時可省去 Math.sqrt
+     */
+    public int distanceSquaredTo(BlockColor other) {
         int dr = this.red - other.red;
         int dg = this.green - other.green;
         int db = this.blue - other.blue;
-        return Math.sqrt(dr * dr + dg * dg + db * db);
+        return dr * dr + dg * dg + db * db;
     }
     
     /**
@@ -90,7 +138,7 @@ public class BlockColor {
         int g = (int) (this.green + (other.green - this.green) * factor);
         int b = (int) (this.blue + (other.blue - this.blue) * factor);
         
-        return new BlockColor(r, g, b);
+        return of(r, g, b);
     }
     
     /**
@@ -101,7 +101,7 @@ public class ColorService {
             int g = colorsConfig.getInt(path + ".g");
             int b = colorsConfig.getInt(path + ".b");
             
-            return new BlockColor(r, g, b);
+            return BlockColor.of(r, g, b);
         } catch (Exception e) {
             plugin.getLogger().warning(String.format("Error reading color for block %s: %s", blockDataString, e.getMessage()));
             return null;
@@ -116,7 +116,7 @@ public class ColorService {
     private BlockColor getColorFromMapColor(BlockData blockData) {
         try {
             Color mapColor = blockData.getMapColor();
-            return new BlockColor(mapColor.getRed(), mapColor.getGreen(), mapColor.getBlue());
+            return BlockColor.of(mapColor.getRed(), mapColor.getGreen(), mapColor.getBlue());
         } catch (Exception e) {
             plugin.getLogger().warning(String.format("Error retrieving map color for block %s: %s", blockData.getAsString(), e.getMessage()));
             return null;
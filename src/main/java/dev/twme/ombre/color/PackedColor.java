@@ -0,0 +1,53 @@
+package dev.twme.ombre.color;
+
+/**
+ * 打包 RGB 顏色工具
+ * 以單一 int（0xRRGGBB）表示顏色，供熱路徑使用而不需建立物件
+ */
+public final class PackedColor {
+
+    private PackedColor() {
+    }
+
+    /**
+     * 打包 RGB 分量（會限制在 0-255 範圍內）
+     */
+    public static int pack(int red, int green, int blue) {
+        return (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+    }
+
+    public static int red(int rgb) {
+        return (rgb >> 16) & 0xFF;
+    }
+
+    public static int green(int rgb) {
+        return (rgb >> 8) & 0xFF;
+    }
+
+    public static int blue(int rgb) {
+        return rgb & 0xFF;
+    }
+
+    /**
+     * 計算兩個顏色的歐氏距離平方
+     * 僅用於比較大小時可省去 Math.sqrt
+     */
+    public static int distanceSq(int rgb1, int rgb2) {
+        int dr = red(rgb1) - red(rgb2);
+        int dg = green(rgb1) - green(rgb2);
+        int db = blue(rgb1) - blue(rgb2);
+        return dr * dr + dg * dg + db * db;
+    }
+
+    /**
+     * 打散 RGB 位元，避免相近顏色落在同一槽位（供直接映射的快取計算槽位）
+     */
+    public static int mix(int rgb) {
+        int h = rgb * 0x9E3779B1;
+        return h ^ (h >>> 16);
+    }
+
+    private static int clamp(int value) {
+        return Math.max(0, Math.min(255, value));
+    }
+}
@@ -0,0 +1,121 @@
+package dev.twme.ombre.http;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 條件式下載
+ * 記錄上次成功回應的 ETag / Last-Modified，之後的請求帶上 If-None-Match / If-Modified-Since；
+ * 伺服器回應 304 時不讀取也不解析回應內容。
+ * 驗證資訊只在回應內容完整讀取成功後才更新，讀取失敗時保留舊的驗證資訊
+ */
+public class ConditionalFetcher {
+
+    /**
+     * 回應內容的讀取方式（在 HTTP 執行緒池上執行，可以阻塞）
+     */
+    @FunctionalInterface
+    public interface BodyReader {
+        void read(InputStream body) throws IOException;
+    }
+
+    private final HttpTransport transport;
+    private final String url;
+    private final long timeoutMillis;
+    private final int maxAttempts;
+    private final long retryDelayMillis;
+
+    // 上次回應的驗證資訊
+    private volatile String etag;
+    private volatile String lastModified;
+
+    /**
+     * @param transport HTTP 傳輸層
+     * @param url 下載網址
+     * @param timeoutMillis 等待回應與讀取內容各自的逾時（毫秒）
+     * @param maxAttempts 最多嘗試次數
+     * @param retryDelayMillis 第一次重試前的延遲
+     */
+    public ConditionalFetcher(HttpTransport transport, String url, long timeoutMillis,
+                              int maxAttempts, long retryDelayMillis) {
+        this.transport = transport;
+        this.url = url;
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMillis = retryDelayMillis;
+    }
+
+    /**
+     * 下載資料
+     *
+     * @param conditional 是否帶上驗證資訊（呼叫端手上有資料時才能接受 304）
+     * @param reader 回應為 200 時讀取內容，gzip 壓縮已解開
+     * @return true 表示已讀取新內容，false 表示伺服器回應未修改；其他狀態碼或讀取失敗時以例外完成
+     */
+    public CompletableFuture<Boolean> fetch(boolean conditional, BodyReader reader) {
+        HttpRequest.Builder request = transport.newRequest(url, timeoutMillis)
+            .header("Accept-Encoding", "gzip");
+
+        String currentEtag = etag;
+        String currentLastModified = lastModified;
+        if (conditional && currentEtag != null) {
+            request.header("If-None-Match", currentEtag);
+        }
+        if (conditional && currentLastModified != null) {
+            request.header("If-Modified-Since", currentLastModified);
+        }
+
+        return transport.sendAndRead(request.build(), HttpResponse.BodyHandlers.ofInputStream(),
+                maxAttempts, retryDelayMillis, timeoutMillis, response -> handleResponse(response, conditional, reader));
+    }
+
+    private boolean handleResponse(HttpResponse<InputStream> response, boolean conditional, BodyReader reader) {
+        int status = response.statusCode();
+        if (status == 304 && conditional) {
+            HttpTransport.discard(response.body());
+            return false;
+        } else if (status != 200) {
+            HttpTransport.discard(response.body());
+            throw new IllegalStateException("HTTP error code: " + status);
+        }
+
+        try (InputStream body = response.body()) {
+            InputStream input = body;
+            if ("gzip".equalsIgnoreCase(response.headers().firstValue("Content-Encoding").orElse(null))) {
+                input = new GZIPInputStream(body, 8192);
+            }
+            reader.read(input);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        etag = response.headers().firstValue("ETag").orElse(null);
+        lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+        return true;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    /**
+     * 設定驗證資訊（從快取檔案載入時），傳入 null 清除
+     */
+    public void setValidators(String etag, String lastModified) {
+        this.etag = etag;
+        this.lastModified = lastModified;
+    }
+}
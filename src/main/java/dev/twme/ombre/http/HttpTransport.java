@@ -0,0 +1,205 @@
+package dev.twme.ombre.http;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * 外部 API 共用的 HTTP 傳輸層
+ * 所有請求共用同一個 {@link HttpClient}（連線重用、可使用 HTTP/2），以非同步方式送出。
+ * 回應與後續的解析在專用的執行緒上處理，不佔用 ForkJoin 公用池；
+ * 重試以排程延遲執行，不會讓執行緒 sleep 等待。
+ * {@link HttpRequest#timeout} 只限制等待回應標頭的時間，讀取回應內容需另外以 {@link #sendAndRead} 限制
+ */
+public class HttpTransport {
+
+    public static final String USER_AGENT = "Ombre-Minecraft-Plugin/1.0";
+
+    private final Logger logger;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService retryScheduler;
+    private final HttpClient client;
+
+    private volatile boolean shutdown;
+
+    public HttpTransport(JavaPlugin plugin) {
+        this(plugin.getLogger(), Math.max(1000, plugin.getConfig().getLong("http.connect-timeout", 10000)));
+    }
+
+    /**
+     * @param logger 記錄重試訊息
+     * @param connectTimeoutMillis 建立連線的逾時（毫秒）
+     */
+    public HttpTransport(Logger logger, long connectTimeoutMillis) {
+        this.logger = logger;
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "Ombre-Http-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Ombre-Http-Retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+            .executor(executor)
+            .build();
+    }
+
+    /**
+     * 建立帶有 User-Agent 與逾時設定的 GET 請求
+     *
+     * @param url 請求網址
+     * @param timeoutMillis 等待回應的逾時（毫秒）
+     */
+    public HttpRequest.Builder newRequest(String url, long timeoutMillis) {
+        return HttpRequest.newBuilder(URI.create(url))
+            .GET()
+            .timeout(Duration.ofMillis(timeoutMillis))
+            .header("User-Agent", USER_AGENT);
+    }
+
+    /**
+     * 非同步送出請求
+     * 連線錯誤、逾時與 5xx / 429 回應會在延遲後重試，延遲每次加倍；
+     * 其他狀態碼直接交給呼叫端處理
+     *
+     * @param request 請求
+     * @param handler 回應內容的處理方式
+     * @param maxAttempts 最多嘗試次數
+     * @param retryDelayMillis 第一次重試前的延遲
+     * @return 最後一次的回應；所有嘗試都發生錯誤時以例外完成
+     */
+    public <T> CompletableFuture<HttpResponse<T>> send(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                      int maxAttempts, long retryDelayMillis) {
+        CompletableFuture<HttpResponse<T>> result = new CompletableFuture<>();
+        attempt(request, handler, 1, Math.max(1, maxAttempts), retryDelayMillis, result);
+        return result;
+    }
+
+    /**
+     * 非同步送出請求，並在 HTTP 執行緒池上讀取回應內容
+     * 讀取必須在期限內完成，逾時會關閉回應內容，讓阻塞在讀取上的執行緒以 IOException 結束，
+     * 伺服器在傳送途中停止回應時不會永久佔用執行緒
+     *
+     * @param reader 讀取並解析回應（在 HTTP 執行緒池上執行，可以阻塞）
+     * @param readTimeoutMillis 讀取回應內容的期限（毫秒）
+     * @return 解析結果；逾時以 {@link TimeoutException} 完成
+     */
+    public <T, R> CompletableFuture<R> sendAndRead(HttpRequest request, HttpResponse.BodyHandler<T> handler,
+                                                  int maxAttempts, long retryDelayMillis, long readTimeoutMillis,
+                                                  Function<HttpResponse<T>, R> reader) {
+        return send(request, handler, maxAttempts, retryDelayMillis).thenCompose(response -> {
+            CompletableFuture<R> result = CompletableFuture
+                .supplyAsync(() -> reader.apply(response), executor)
+                .orTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, error) -> {
+                if (unwrap(error) instanceof TimeoutException) {
+                    discard(response.body());
+                }
+            });
+            return result;
+        });
+    }
+
+    private <T> void attempt(HttpRequest request, HttpResponse.BodyHandler<T> handler, int attempt,
+                             int maxAttempts, long delayMillis, CompletableFuture<HttpResponse<T>> result) {
+        if (shutdown) {
+            result.completeExceptionally(new IOException("HTTP transport is shut down"));
+            return;
+        }
+
+        client.sendAsync(request, handler).whenComplete((response, error) -> {
+            boolean retryable = error != null || isRetryableStatus(response.statusCode());
+            if (!retryable || attempt >= maxAttempts) {
+                if (error != null) {
+                    result.completeExceptionally(unwrap(error));
+                } else {
+                    result.complete(response);
+                }
+                return;
+            }
+
+            String reason = error != null ? unwrap(error).toString() : "HTTP " + response.statusCode();
+            logger.warning("Request to " + request.uri().getHost() + " failed (attempt "
+                + attempt + "/" + maxAttempts + "): " + reason + ", retrying in " + delayMillis + "ms");
+            if (response != null) {
+                discard(response.body());
+            }
+
+            try {
+                retryScheduler.schedule(
+                    () -> attempt(request, handler, attempt + 1, maxAttempts, delayMillis * 2, result),
+                    delayMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                result.completeExceptionally(new IOException("HTTP transport is shut down"));
+            }
+        });
+    }
+
+    /**
+     * 回應與解析等阻塞工作使用的執行緒池
+     */
+    public ExecutorService getExecutor() {
+        return executor;
+    }
+
+    /**
+     * 停止所有請求與排程中的重試
+     */
+    public void shutdown() {
+        shutdown = true;
+        retryScheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private static boolean isRetryableStatus(int status) {
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * 取出 CompletableFuture 包裝的原始例外
+     */
+    public static Throwable unwrap(Throwable error) {
+        while (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        return error;
+    }
+
+    /**
+     * 關閉不會再讀取的回應內容，讓連線可以被重用
+     */
+    public static void discard(Object body) {
+        if (body instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) body).close();
+            } catch (Exception e) {
+                // 忽略
+            }
+        }
+    }
+}
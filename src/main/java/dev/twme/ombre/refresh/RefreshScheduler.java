@@ -0,0 +1,264 @@
+package dev.twme.ombre.refresh;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+import org.bukkit.plugin.java.JavaPlugin;
+
+/**
+ * 外部資料集的背景更新排程器
+ * 過期的資料照常提供給玩家，同時在背景重新驗證 (stale-while-revalidate)。
+ * 更新間隔加入隨機抖動，避免多個資料集或多台伺服器同時請求；失敗時以指數退避重試
+ */
+public class RefreshScheduler {
+
+    private final JavaPlugin plugin;
+    private final ScheduledExecutorService executor;
+
+    // 資料集名稱 -> 統計
+    private final Map<String, RefreshStats> stats = new ConcurrentHashMap<>();
+
+    // "資料集:鍵" -> 單一項目的重新驗證狀態
+    private final Map<String, KeyState> keyStates = new ConcurrentHashMap<>();
+
+    private final double jitter;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+
+    private volatile boolean shutdown;
+
+    public RefreshScheduler(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.jitter = Math.max(0, Math.min(0.5, plugin.getConfig().getDouble("refresh.jitter", 0.1)));
+        this.initialBackoffMillis = TimeUnit.SECONDS.toMillis(
+            Math.max(1, plugin.getConfig().getLong("refresh.backoff-initial-seconds", 30)));
+        this.maxBackoffMillis = Math.max(initialBackoffMillis, TimeUnit.SECONDS.toMillis(
+            plugin.getConfig().getLong("refresh.backoff-max-seconds", 3600)));
+
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "Ombre-Refresh-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 取得資料集的統計（不存在時建立）
+     */
+    public RefreshStats getStats(String dataset) {
+        return stats.computeIfAbsent(dataset, RefreshStats::new);
+    }
+
+    /**
+     * 取得所有資料集的統計，依名稱排序
+     */
+    public Collection<RefreshStats> getAllStats() {
+        List<RefreshStats> result = new ArrayList<>(stats.values());
+        result.sort(Comparator.comparing(RefreshStats::getDataset));
+        return result;
+    }
+
+    /**
+     * 定期更新整個資料集
+     * 成功後等待約 intervalMillis（加上抖動）再更新；失敗時以指數退避重試，但不超過 intervalMillis
+     *
+     * @param dataset 資料集名稱
+     * @param initialDelayMillis 第一次更新前的延遲
+     * @param intervalMillis 成功後的更新間隔
+     * @param task 更新工作，返回是否成功（在排程執行緒上執行，可阻塞）
+     */
+    public void schedulePeriodic(String dataset, long initialDelayMillis, long intervalMillis, Callable<Boolean> task) {
+        RefreshStats datasetStats = getStats(dataset);
+        long delay = Math.max(0, initialDelayMillis);
+        datasetStats.setNextRefreshTime(System.currentTimeMillis() + delay);
+        schedule(() -> runPeriodic(datasetStats, intervalMillis, task), delay);
+    }
+
+    private void runPeriodic(RefreshStats datasetStats, long intervalMillis, Callable<Boolean> task) {
+        long start = System.nanoTime();
+        boolean success;
+        try {
+            success = Boolean.TRUE.equals(task.call());
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Background refresh of " + datasetStats.getDataset() + " failed", e);
+            success = false;
+        }
+        long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        long delay;
+        if (success) {
+            datasetStats.recordSuccess(latency);
+            delay = jittered(intervalMillis);
+        } else {
+            datasetStats.recordFailure(latency);
+            delay = jittered(Math.min(backoff(datasetStats.getConsecutiveFailures()), intervalMillis));
+            plugin.getLogger().fine("Retrying " + datasetStats.getDataset() + " refresh in " + RefreshStats.formatDuration(delay));
+        }
+
+        datasetStats.setNextRefreshTime(System.currentTimeMillis() + delay);
+        schedule(() -> runPeriodic(datasetStats, intervalMillis, task), delay);
+    }
+
+    /**
+     * 在背景重新驗證單一項目
+     * 同一項目同時只會有一個重新驗證；上次失敗後仍在退避期間的項目會被略過
+     *
+     * @param dataset 資料集名稱
+     * @param key 項目的鍵
+     * @param task 開始重新驗證並返回是否成功
+     * @return 是否已開始重新驗證
+     */
+    public boolean revalidate(String dataset, Object key, Supplier<CompletableFuture<Boolean>> task) {
+        if (shutdown) {
+            return false;
+        }
+
+        String id = dataset + ':' + key;
+        KeyState state = keyStates.computeIfAbsent(id, k -> new KeyState());
+        synchronized (state) {
+            if (state.running || System.currentTimeMillis() < state.nextAttempt) {
+                return false;
+            }
+            state.running = true;
+        }
+
+        RefreshStats datasetStats = getStats(dataset);
+        try {
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                CompletableFuture<Boolean> future;
+                try {
+                    future = task.get();
+                } catch (Exception e) {
+                    future = CompletableFuture.failedFuture(e);
+                }
+                future.whenComplete((result, error) -> {
+                    long latency = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    boolean success = error == null && Boolean.TRUE.equals(result);
+                    long expiry = -1;
+                    synchronized (state) {
+                        state.running = false;
+                        if (success) {
+                            keyStates.remove(id, state);
+                        } else {
+                            state.failures++;
+                            state.nextAttempt = System.currentTimeMillis() + jittered(backoff(state.failures));
+                            if (!state.expiryScheduled) {
+                                state.expiryScheduled = true;
+                                expiry = state.nextAttempt + maxBackoffMillis - System.currentTimeMillis();
+                            }
+                        }
+                    }
+                    if (expiry >= 0) {
+                        schedule(() -> expire(id, state), expiry);
+                    }
+                    if (success) {
+                        datasetStats.recordSuccess(latency);
+                    } else {
+                        datasetStats.recordFailure(latency);
+                    }
+                });
+            });
+        } catch (RejectedExecutionException e) {
+            synchronized (state) {
+                state.running = false;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 移除退避結束後一段時間內都沒有再被重新驗證的失敗項目
+     * 退避結束後保留最長退避時間，讓很快再次失敗的項目延續退避次數；
+     * 之後不再被請求的鍵不會永久留在記憶體中
+     */
+    private void expire(String id, KeyState state) {
+        long remaining;
+        synchronized (state) {
+            if (state.running) {
+                // 進行中的重新驗證完成時會自行移除或重新安排
+                state.expiryScheduled = false;
+                return;
+            }
+            remaining = state.nextAttempt + maxBackoffMillis - System.currentTimeMillis();
+            if (remaining <= 0) {
+                keyStates.remove(id, state);
+                return;
+            }
+        }
+        schedule(() -> expire(id, state), remaining);
+    }
+
+    /**
+     * 清除資料集所有項目的退避狀態（例如清除快取後）
+     */
+    public void forget(String dataset) {
+        String prefix = dataset + ':';
+        keyStates.keySet().removeIf(id -> id.startsWith(prefix));
+    }
+
+    /**
+     * 停止所有排程
+     */
+    public void shutdown() {
+        shutdown = true;
+        executor.shutdownNow();
+        keyStates.clear();
+    }
+
+    private void schedule(Runnable runnable, long delayMillis) {
+        if (shutdown) {
+            return;
+        }
+        try {
+            executor.schedule(runnable, delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // 已關閉
+        }
+    }
+
+    /**
+     * 第 n 次連續失敗後的退避時間
+     */
+    private long backoff(int failures) {
+        int shift = Math.min(Math.max(0, failures - 1), 30);
+        return Math.min(maxBackoffMillis, initialBackoffMillis << shift);
+    }
+
+    /**
+     * 在時間上加入 ±jitter 比例的隨機抖動
+     */
+    private long jittered(long millis) {
+        if (jitter == 0) {
+            return millis;
+        }
+        double factor = 1 + jitter * (ThreadLocalRandom.current().nextDouble() * 2 - 1);
+        return Math.max(0, (long) (millis * factor));
+    }
+
+    /**
+     * 單一項目的重新驗證狀態
+     */
+    private static final class KeyState {
+        boolean running;
+        int failures;
+        long nextAttempt;
+        boolean expiryScheduled;
+    }
+}
@@ -0,0 +1,151 @@
+package dev.twme.ombre.refresh;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 單一資料集的更新統計
+ * 記錄資料新鮮度、更新延遲、成功與失敗次數，以及提供給玩家的資料中有多少是過期的
+ */
+public class RefreshStats {
+    private final String dataset;
+
+    private final AtomicLong successes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong freshServed = new AtomicLong();
+    private final AtomicLong staleServed = new AtomicLong();
+
+    private volatile long dataTime;           // 目前資料取得的時間（0 表示尚無資料）
+    private volatile long lastAttemptTime;
+    private volatile long lastLatencyMillis = -1;
+    private volatile int consecutiveFailures;
+    private volatile long nextRefreshTime;    // 下一次定期更新的時間（0 表示未排程）
+
+    RefreshStats(String dataset) {
+        this.dataset = dataset;
+    }
+
+    /**
+     * 記錄一次成功的更新
+     */
+    public void recordSuccess(long latencyMillis) {
+        long now = System.currentTimeMillis();
+        successes.incrementAndGet();
+        totalLatencyMillis.addAndGet(latencyMillis);
+        lastLatencyMillis = latencyMillis;
+        lastAttemptTime = now;
+        dataTime = now;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * 記錄一次失敗的更新
+     */
+    public void recordFailure(long latencyMillis) {
+        failures.incrementAndGet();
+        lastLatencyMillis = latencyMillis;
+        lastAttemptTime = System.currentTimeMillis();
+        consecutiveFailures++;
+    }
+
+    /**
+     * 記錄一次提供給玩家的資料
+     *
+     * @param stale 資料是否已過期
+     */
+    public void recordServed(boolean stale) {
+        if (stale) {
+            staleServed.incrementAndGet();
+        } else {
+            freshServed.incrementAndGet();
+        }
+    }
+
+    /**
+     * 設定目前資料的取得時間（例如從檔案載入的資料）
+     */
+    public void markFresh(long time) {
+        dataTime = time;
+    }
+
+    void setNextRefreshTime(long time) {
+        nextRefreshTime = time;
+    }
+
+    public String getDataset() {
+        return dataset;
+    }
+
+    /**
+     * 取得目前資料的年齡
+     *
+     * @return 毫秒，尚無資料時返回 -1
+     */
+    public long getAgeMillis() {
+        long time = dataTime;
+        return time == 0 ? -1 : Math.max(0, System.currentTimeMillis() - time);
+    }
+
+    public long getLastAttemptTime() {
+        return lastAttemptTime;
+    }
+
+    /**
+     * @return 最近一次更新的延遲（毫秒），尚未更新過時返回 -1
+     */
+    public long getLastLatencyMillis() {
+        return lastLatencyMillis;
+    }
+
+    /**
+     * @return 成功更新的平均延遲（毫秒），尚未成功過時返回 -1
+     */
+    public long getAverageLatencyMillis() {
+        long count = successes.get();
+        return count == 0 ? -1 : totalLatencyMillis.get() / count;
+    }
+
+    public long getSuccesses() {
+        return successes.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public long getFreshServed() {
+        return freshServed.get();
+    }
+
+    public long getStaleServed() {
+        return staleServed.get();
+    }
+
+    public long getNextRefreshTime() {
+        return nextRefreshTime;
+    }
+
+    /**
+     * 將毫秒格式化為簡短的時間長度（例如 42s、5m、3h、2d），負值返回 "-"
+     */
+    public static String formatDuration(long millis) {
+        if (millis < 0) {
+            return "-";
+        }
+        long seconds = millis / 1000;
+        if (seconds < 60) {
+            return seconds + "s";
+        }
+        if (seconds < 3600) {
+            return (seconds / 60) + "m";
+        }
+        if (seconds < 86400) {
+            return (seconds / 3600) + "h";
+        }
+        return (seconds / 86400) + "d";
+    }
+}
@@ -0,0 +1,147 @@
+package dev.twme.ombre.blockcolors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+import dev.twme.ombre.http.HttpTransport;
+
+/**
+ * 以本機 HttpServer 回應 304，驗證重新載入只延長快取期限而不重寫快取檔案
+ */
+class BlockColorCacheTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final long EXPIRED = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(30);
+
+    // 快照檔頭中上次更新時間的位置
+    private static final int LAST_UPDATE_OFFSET = 8;
+
+    private HttpServer server;
+    private HttpTransport transport;
+    private File dataFolder;
+    private File cacheFile;
+    private BlockColorCache cache;
+
+    // 伺服器收到的 If-None-Match（沒有時為空字串）
+    private final List<String> receivedIfNoneMatch = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/color_data.json", this::handle);
+        server.start();
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/color_data.json";
+
+        dataFolder = Files.createTempDirectory("ombre-blockcolors").toFile();
+        cacheFile = new File(dataFolder, "blockcolors_cache.bin");
+        writeSnapshot(url);
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("blockcolors.api.url", url);
+
+        Logger logger = Logger.getLogger("BlockColorCacheTest");
+        transport = new HttpTransport(logger, 5000);
+        // reload 不會用到背景更新排程
+        cache = new BlockColorCache(logger, dataFolder, () -> config, null, transport);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+        for (File file : dataFolder.listFiles()) {
+            file.delete();
+        }
+        dataFolder.delete();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        receivedIfNoneMatch.add(ifNoneMatch != null ? ifNoneMatch : "");
+
+        // 只回應 304：完整下載會因為沒有內容而失敗
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        exchange.sendResponseHeaders(ETAG.equals(ifNoneMatch) ? 304 : 500, -1);
+        exchange.close();
+    }
+
+    private void writeSnapshot(String url) throws IOException {
+        Map<String, BlockColorData> blocks = new LinkedHashMap<>();
+        blocks.put("0", new BlockColorData("0", "Cherry Planks", "#e6c1ba",
+            new double[] {80.5, 10.25, 8.75}, "cherry_planks", false, true));
+
+        BlockColorSnapshot snapshot = new BlockColorSnapshot();
+        snapshot.lastUpdateTime = EXPIRED;
+        snapshot.cacheVersion = "1.0.0";
+        snapshot.apiSourceUrl = url;
+        snapshot.etag = ETAG;
+        snapshot.totalBlocks = blocks.size();
+        snapshot.blocks = blocks;
+        snapshot.write(cacheFile);
+    }
+
+    @Test
+    void notModifiedExtendsExpiryWithoutRewritingData() throws Exception {
+        assertTrue(cache.loadCacheFromFile());
+        assertTrue(cache.needsUpdate());
+
+        byte[] before = Files.readAllBytes(cacheFile.toPath());
+        assertTrue(cache.reload().get(10, TimeUnit.SECONDS));
+
+        assertEquals(List.of(ETAG), receivedIfNoneMatch);
+        assertFalse(cache.needsUpdate());
+        assertTrue(cache.getLastUpdateTime() > EXPIRED);
+
+        // 只有檔頭中的上次更新時間改變
+        byte[] after = Files.readAllBytes(cacheFile.toPath());
+        assertEquals(before.length, after.length);
+        assertArrayEquals(Arrays.copyOfRange(before, 0, LAST_UPDATE_OFFSET),
+            Arrays.copyOfRange(after, 0, LAST_UPDATE_OFFSET));
+        assertArrayEquals(Arrays.copyOfRange(before, LAST_UPDATE_OFFSET + 8, before.length),
+            Arrays.copyOfRange(after, LAST_UPDATE_OFFSET + 8, after.length));
+        assertEquals(cache.getLastUpdateTime(), ByteBuffer.wrap(after).getLong(LAST_UPDATE_OFFSET));
+    }
+
+    @Test
+    void revalidationSurvivesRestart() throws Exception {
+        assertTrue(cache.loadCacheFromFile());
+        assertTrue(cache.reload().get(10, TimeUnit.SECONDS));
+        long revalidated = cache.getLastUpdateTime();
+
+        // 不依賴檔案的修改時間
+        assertTrue(cacheFile.setLastModified(EXPIRED));
+
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("blockcolors.api.url", "http://127.0.0.1:" + server.getAddress().getPort() + "/color_data.json");
+        BlockColorCache restarted = new BlockColorCache(Logger.getLogger("BlockColorCacheTest"),
+            dataFolder, () -> config, null, transport);
+        assertTrue(restarted.loadCacheFromFile());
+        assertEquals(revalidated, restarted.getLastUpdateTime());
+        assertFalse(restarted.needsUpdate());
+    }
+}
@@ -0,0 +1,151 @@
+package dev.twme.ombre.blockcolors;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import dev.twme.ombre.blockcolors.data.BlockColorData;
+
+/**
+ * 方塊顏色快照的寫入 / 讀取，以及損毀檔案的處理
+ */
+class BlockColorSnapshotTest {
+
+    // magic、版本、更新時間之後的字串數
+    private static final int STRING_COUNT_OFFSET = 16;
+
+    private File file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("ombre-snapshot", ".bin").toFile();
+    }
+
+    @AfterEach
+    void tearDown() {
+        file.delete();
+    }
+
+    private static BlockColorSnapshot sample() {
+        Map<String, BlockColorData> blocks = new LinkedHashMap<>();
+        blocks.put("0", new BlockColorData("0", "Cherry Planks", "#e6c1ba",
+            new double[] {80.5, 10.25, 8.75}, "cherry_planks", false, true));
+        blocks.put("837", new BlockColorData("837", "Torch", "#ffd800",
+            new double[] {87.0, 0.5, 86.0}, "torch", true, false));
+
+        BlockColorSnapshot snapshot = new BlockColorSnapshot();
+        snapshot.lastUpdateTime = 1_700_000_000_000L;
+        snapshot.cacheVersion = "1.0";
+        snapshot.apiSourceUrl = "https://blockcolors.app/assets/color_data.json";
+        snapshot.etag = "\"v1\"";
+        snapshot.lastModified = null;
+        snapshot.totalBlocks = 2;
+        snapshot.blocks = blocks;
+        return snapshot;
+    }
+
+    @Test
+    void roundTripsAllFields() throws IOException {
+        BlockColorSnapshot written = sample();
+        written.write(file);
+
+        BlockColorSnapshot read = BlockColorSnapshot.read(file);
+        assertEquals(written.lastUpdateTime, read.lastUpdateTime);
+        assertEquals(written.cacheVersion, read.cacheVersion);
+        assertEquals(written.apiSourceUrl, read.apiSourceUrl);
+        assertEquals(written.etag, read.etag);
+        assertNull(read.lastModified);
+        assertEquals(written.totalBlocks, read.totalBlocks);
+        assertEquals(written.blocks.size(), read.blocks.size());
+
+        for (BlockColorData expected : written.blocks.values()) {
+            BlockColorData actual = read.blocks.get(expected.getId());
+            assertEquals(expected.getDisplayName(), actual.getDisplayName());
+            assertEquals(expected.getTextureName(), actual.getTextureName());
+            assertEquals(expected.getRgb(), actual.getRgb());
+            assertArrayEquals(expected.getLab(), actual.getLab(), 1e-4);
+            assertEquals(expected.isDecoration(), actual.isDecoration());
+            assertEquals(expected.isShow3d(), actual.isShow3d());
+            assertNull(actual.getMaterial());
+        }
+
+        BlockColorData torch = read.blocks.get("837");
+        assertTrue(torch.isDecoration());
+        assertFalse(torch.isShow3d());
+    }
+
+    @Test
+    void rejectsNegativeStringCount() throws IOException {
+        sample().write(file);
+        patchInt(STRING_COUNT_OFFSET, -1);
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+    }
+
+    @Test
+    void rejectsInvalidBlockCount() throws IOException {
+        sample().write(file);
+        int countOffset = blockCountOffset();
+
+        patchInt(countOffset, -1);
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+
+        patchInt(countOffset, Integer.MAX_VALUE);
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+    }
+
+    @Test
+    void rejectsOutOfRangeMaterialIndex() throws IOException {
+        sample().write(file);
+        // 第一個方塊紀錄的第 4 個欄位為 Material 名稱的字串表索引
+        int materialOffset = blockCountOffset() + 4 + 3 * 4;
+
+        patchInt(materialOffset, 1000);
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+
+        patchInt(materialOffset, -2);
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+    }
+
+    @Test
+    void rejectsTruncatedFile() throws IOException {
+        sample().write(file);
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(bytes, bytes.length - 5));
+        assertThrows(IOException.class, () -> BlockColorSnapshot.read(file));
+    }
+
+    /**
+     * 方塊數欄位的位置：字串表之後的 4 個元資訊索引與總方塊數
+     */
+    private int blockCountOffset() throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        buffer.position(STRING_COUNT_OFFSET);
+        int stringCount = buffer.getInt();
+        for (int i = 0; i < stringCount; i++) {
+            int length = buffer.getShort() & 0xFFFF;
+            buffer.position(buffer.position() + length);
+        }
+        return buffer.position() + 5 * 4;
+    }
+
+    private void patchInt(int offset, int value) throws IOException {
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        ByteBuffer.wrap(bytes).putInt(offset, value);
+        Files.write(file.toPath(), bytes);
+    }
+}
@@ -0,0 +1,32 @@
+package dev.twme.ombre.blockcolors.util;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * 查表式 Lab 轉換與 {@link ColorConverter#rgbToLab(int)} 參考實作的誤差
+ */
+class LabConverterTest {
+
+    @Test
+    void staysWithinToleranceOverWholeRgbCube() {
+        double maxError = 0;
+        int worst = 0;
+
+        for (int rgb = 0; rgb <= 0xFFFFFF; rgb++) {
+            double[] expected = ColorConverter.rgbToLab(rgb);
+            double[] actual = LabConverter.rgbToLab(rgb);
+            for (int i = 0; i < 3; i++) {
+                double error = Math.abs(expected[i] - actual[i]);
+                if (error > maxError) {
+                    maxError = error;
+                    worst = rgb;
+                }
+            }
+        }
+
+        assertTrue(maxError <= LabConverter.TOLERANCE,
+            String.format("max error %.6f at #%06X exceeds %.6f", maxError, worst, LabConverter.TOLERANCE));
+    }
+}
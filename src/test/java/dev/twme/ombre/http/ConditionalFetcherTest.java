@@ -0,0 +1,119 @@
+package dev.twme.ombre.http;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * 以本機 HttpServer 取代 blockcolors.app，驗證條件式下載的 ETag / 304 流程
+ */
+class ConditionalFetcherTest {
+
+    private static final String ETAG = "\"v1\"";
+    private static final byte[] BODY = "{\"stone\":{}}".getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private HttpTransport transport;
+    private ConditionalFetcher fetcher;
+
+    // 伺服器收到的 If-None-Match（沒有時為空字串）
+    private final List<String> receivedIfNoneMatch = new CopyOnWriteArrayList<>();
+    private final AtomicInteger parseCount = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/color_data.json", this::handle);
+        server.start();
+
+        transport = new HttpTransport(Logger.getLogger("ConditionalFetcherTest"), 5000);
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/color_data.json";
+        fetcher = new ConditionalFetcher(transport, url, 5000, 1, 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        transport.shutdown();
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        receivedIfNoneMatch.add(ifNoneMatch != null ? ifNoneMatch : "");
+
+        exchange.getResponseHeaders().set("ETag", ETAG);
+        if (ETAG.equals(ifNoneMatch)) {
+            exchange.sendResponseHeaders(304, -1);
+        } else {
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(BODY);
+            }
+        }
+        exchange.close();
+    }
+
+    private boolean fetch(boolean conditional) throws Exception {
+        return fetcher.fetch(conditional, body -> {
+            assertArrayEquals(BODY, body.readAllBytes());
+            parseCount.incrementAndGet();
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void storesEtagFromFullResponse() throws Exception {
+        assertTrue(fetch(false));
+        assertEquals(1, parseCount.get());
+        assertEquals(ETAG, fetcher.getEtag());
+        assertEquals(List.of(""), receivedIfNoneMatch);
+    }
+
+    @Test
+    void notModifiedSkipsParsing() throws Exception {
+        assertTrue(fetch(true));
+        assertFalse(fetch(true));
+
+        assertEquals(1, parseCount.get());
+        assertEquals(List.of("", ETAG), receivedIfNoneMatch);
+    }
+
+    @Test
+    void unconditionalRequestOmitsValidators() throws Exception {
+        assertTrue(fetch(true));
+        assertTrue(fetch(false));
+
+        assertEquals(2, parseCount.get());
+        assertEquals(List.of("", ""), receivedIfNoneMatch);
+    }
+
+    @Test
+    void clearedValidatorsRequestFullData() throws Exception {
+        assertTrue(fetch(true));
+        fetcher.setValidators(null, null);
+        assertNull(fetcher.getEtag());
+
+        assertTrue(fetch(true));
+        assertEquals(2, parseCount.get());
+        assertEquals(ETAG, fetcher.getEtag());
+    }
+}